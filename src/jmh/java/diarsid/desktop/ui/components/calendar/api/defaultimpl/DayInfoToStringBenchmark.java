@@ -0,0 +1,40 @@
+package diarsid.desktop.ui.components.calendar.api.defaultimpl;
+
+import java.time.LocalDate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DayInfoToStringBenchmark {
+
+    private final Day.Info headerOnly = new DayInfo(LocalDate.of(2024, 5, 9), "header");
+    private final Day.Info withContent = new DayInfo(
+            LocalDate.of(2024, 5, 10), "header", "first line", "second line", "third line");
+
+    @Benchmark
+    public String headerOnly() {
+        return DayInfoToString.DEFAULT.apply(this.headerOnly);
+    }
+
+    @Benchmark
+    public String withContent() {
+        return DayInfoToString.DEFAULT.apply(this.withContent);
+    }
+}
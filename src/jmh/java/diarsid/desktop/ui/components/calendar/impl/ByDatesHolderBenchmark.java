@@ -0,0 +1,78 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ByDatesHolderBenchmark {
+
+    private LocalDate[] dates;
+    private ByDatesHolder<LocalDate> holder;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        int days = Year.of(2024).length();
+        this.dates = new LocalDate[days];
+        this.holder = new ByDatesHolder<>();
+
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        for ( int i = 0; i < days; i++ ) {
+            this.dates[i] = date;
+            this.holder.put(date, date);
+            date = date.plusDays(1);
+        }
+    }
+
+    private LocalDate nextDate() {
+        this.index = (this.index + 1) % this.dates.length;
+        return this.dates[this.index];
+    }
+
+    /*
+     * As on every fill of a year view.
+     * */
+    @Benchmark
+    public ByDatesHolder<LocalDate> putYear() {
+        ByDatesHolder<LocalDate> holder = new ByDatesHolder<>();
+        for ( LocalDate date : this.dates ) {
+            holder.put(date, date);
+        }
+        return holder;
+    }
+
+    @Benchmark
+    public LocalDate findOrNull() {
+        return this.holder.findOrNull(this.nextDate());
+    }
+
+    @Benchmark
+    public void findByMonth(Blackhole blackhole) {
+        blackhole.consume(this.holder.findBy(YearMonth.from(this.nextDate())));
+    }
+
+    @Benchmark
+    public void findByYear(Blackhole blackhole) {
+        blackhole.consume(this.holder.findBy(Year.of(2024)));
+    }
+}
@@ -0,0 +1,68 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/*
+ * Navigation with one listener attached, as it is when a view is shown.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CalendarStateControlBenchmark {
+
+    private CalendarStateControl state;
+    private long changes;
+
+    @Setup
+    public void setUp() {
+        this.state = new CalendarStateControl(LocalDate.of(2024, 1, 15));
+        this.state.property().addListener((p, oldDate, newDate) -> {
+            this.changes++;
+        });
+    }
+
+    @Benchmark
+    public LocalDate nextAndPrevMonth() {
+        this.state.toNextMonth();
+        this.state.toPrevMonth();
+        return this.state.property().get();
+    }
+
+    @Benchmark
+    public LocalDate nextAndPrevYear() {
+        this.state.toNextYear();
+        this.state.toPrevYear();
+        return this.state.property().get();
+    }
+
+    @Benchmark
+    public LocalDate nextAndPrevDay() {
+        this.state.toNextDay();
+        this.state.toPrevDay();
+        return this.state.property().get();
+    }
+
+    @Benchmark
+    public LocalDate toYearAndMonthAndDay() {
+        this.state.toYearAndMonthAndDay(2025, Month.MARCH, 10);
+        this.state.toYearAndMonthAndDay(2024, Month.JANUARY, 15);
+        return this.state.property().get();
+    }
+}
@@ -0,0 +1,142 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfo;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import static diarsid.desktop.ui.components.calendar.api.Day.Info.Control.Eviction.never;
+
+/*
+ * Repository answers immediately and all callbacks run on calling threads, so only the cache
+ * itself is measured.
+ * */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DayInfoCachedStateBenchmark {
+
+    private static final int FIRST_YEAR = 2020;
+    private static final int YEARS = 3;
+
+    private static class InMemoryRepository implements Day.Info.Repository {
+
+        @Override
+        public Optional<Day.Info> findBy(LocalDate date) {
+            return Optional.ofNullable(infoOf(date));
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(YearMonth month) {
+            Map<LocalDate, Day.Info> infos = new HashMap<>();
+            for ( int day = 1; day <= month.lengthOfMonth(); day++ ) {
+                Day.Info info = infoOf(month.atDay(day));
+                if ( info != null ) {
+                    infos.put(info.date(), info);
+                }
+            }
+            return infos;
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(Year year) {
+            Map<LocalDate, Day.Info> infos = new HashMap<>();
+            for ( int month = 1; month <= 12; month++ ) {
+                infos.putAll(this.findAllBy(year.atMonth(month)));
+            }
+            return infos;
+        }
+
+        private static Day.Info infoOf(LocalDate date) {
+            if ( date.getDayOfMonth() % 3 != 0 ) {
+                return null;
+            }
+            return new DayInfo(date, "header", "line 1", "line 2");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dates {
+
+        private LocalDate date = LocalDate.of(FIRST_YEAR, 1, 1);
+
+        private LocalDate next() {
+            this.date = this.date.plusDays(1);
+            if ( this.date.getYear() >= FIRST_YEAR + YEARS ) {
+                this.date = LocalDate.of(FIRST_YEAR, 1, 1);
+            }
+            return this.date;
+        }
+    }
+
+    private DayInfoCachedState state;
+
+    @Setup
+    public void setUp() {
+        this.state = new DayInfoCachedState(
+                Day.Info.Repository.Async.asyncOver(new InMemoryRepository(), Runnable::run),
+                never(),
+                0,
+                Runnable::run);
+
+        for ( int year = FIRST_YEAR; year < FIRST_YEAR + YEARS; year++ ) {
+            this.state.load(year).join();
+        }
+    }
+
+    @Benchmark
+    public Optional<Day.Info> findDayInfoOf(Dates dates) {
+        return this.state.findDayInfoOf(dates.next());
+    }
+
+    @Benchmark
+    public Object loadCachedMonths(Dates dates) {
+        YearMonth month = YearMonth.from(dates.next());
+        return this.state.load(month.minusMonths(1), month, month.plusMonths(1)).join();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public Optional<Day.Info> contendedFind(Dates dates) {
+        return this.state.findDayInfoOf(dates.next());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Object contendedLoad(Dates dates) {
+        YearMonth month = YearMonth.from(dates.next());
+        return this.state.load(month.minusMonths(1), month, month.plusMonths(1)).join();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedSet(Dates dates) {
+        this.state.set(new DayInfo(dates.next(), "changed"));
+    }
+}
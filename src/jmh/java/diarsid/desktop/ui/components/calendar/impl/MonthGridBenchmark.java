@@ -0,0 +1,56 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/*
+ * Date math done by MonthViewImpl.fill() and YearViewImpl.fill() without JavaFX nodes.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MonthGridBenchmark {
+
+    @Param({"MONDAY", "SUNDAY"})
+    public DayOfWeek firstDayOfWeek;
+
+    private final LocalDate[][] grid = new LocalDate[MonthGrid.WEEKS][MonthGrid.DAYS_IN_WEEK];
+    private final LocalDate[] dates = new LocalDate[31];
+    private YearMonth month = YearMonth.of(2024, 1);
+    private int year = 2024;
+
+    @Benchmark
+    public LocalDate[][] monthViewGrid() {
+        this.month = this.month.plusMonths(1);
+        MonthGrid.datesOf(this.month, this.firstDayOfWeek, this.grid);
+        return this.grid;
+    }
+
+    @Benchmark
+    public int yearViewDates() {
+        this.year = this.year == 2030 ? 2020 : this.year + 1;
+        int days = 0;
+        for ( Month month : Month.values() ) {
+            days += MonthGrid.datesOf(this.year, month, this.dates);
+        }
+        return days;
+    }
+}
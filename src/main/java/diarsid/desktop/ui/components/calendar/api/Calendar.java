@@ -12,6 +12,7 @@ import javafx.scene.layout.Region;
 import diarsid.desktop.ui.components.calendar.impl.CalendarStateControl;
 import diarsid.desktop.ui.components.calendar.impl.DayInfoCachedState;
 import diarsid.desktop.ui.components.calendar.impl.MonthViewImpl;
+import diarsid.desktop.ui.components.calendar.impl.YearCanvasViewImpl;
 import diarsid.desktop.ui.components.calendar.impl.YearViewImpl;
 import diarsid.support.javafx.components.Visible;
 import diarsid.support.javafx.css.pseudoclasses.PseudoClassesBoundTo;
@@ -28,6 +29,46 @@ public interface Calendar {
                 DayOfWeek firstDayOfWeek,
                 PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
                 Function<LocalDate, String> defaultTooltipText) {
+            return newMonthView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    firstDayOfWeek,
+                    pseudoClassesByDates,
+                    defaultTooltipText,
+                    ViewSettings.DEFAULT);
+        }
+
+        static MonthView newMonthView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                DayOfWeek firstDayOfWeek,
+                PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
+            return newMonthView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    firstDayOfWeek,
+                    PseudoClassesByDates.copiedFrom(pseudoClassesByDates),
+                    defaultTooltipText,
+                    settings);
+        }
+
+        static MonthView newMonthView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                DayOfWeek firstDayOfWeek,
+                PseudoClassesByDates pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
             return new MonthViewImpl(
                     calendarStateControl,
                     (DayInfoCachedState) dayInfoControl,
@@ -35,11 +76,18 @@ public interface Calendar {
                     mouseCallback,
                     firstDayOfWeek,
                     pseudoClassesByDates,
-                    defaultTooltipText);
+                    defaultTooltipText,
+                    settings);
         }
 
         @Override
         Region node();
+
+        /*
+         * Detaches the view from Calendar.State, Day.Info.Control, PseudoClassesByDates and midnight timer,
+         * so it is not updated anymore and can be garbage collected. Must be called on JavaFX thread.
+         * */
+        void dispose();
     }
 
     interface YearView extends Calendar, Visible {
@@ -51,18 +99,118 @@ public interface Calendar {
                 Day.MouseCallback mouseCallback,
                 PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
                 Function<LocalDate, String> defaultTooltipText) {
+            return newYearView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    pseudoClassesByDates,
+                    defaultTooltipText,
+                    ViewSettings.DEFAULT);
+        }
+
+        static YearView newYearView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
+            return newYearView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    PseudoClassesByDates.copiedFrom(pseudoClassesByDates),
+                    defaultTooltipText,
+                    settings);
+        }
+
+        static YearView newYearView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                PseudoClassesByDates pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
             return new YearViewImpl(
                     calendarStateControl,
                     (DayInfoCachedState) dayInfoControl,
                     dayInfoToString,
                     mouseCallback,
                     pseudoClassesByDates,
-                    defaultTooltipText);
+                    defaultTooltipText,
+                    settings);
+        }
+
+        /*
+         * Calendar.YearView that draws all days on a single Canvas. It is much lighter than the view made by
+         * newYearView(...) and is preferable when several year views are shown at once.
+         * */
+        static YearView newYearCanvasView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText) {
+            return newYearCanvasView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    pseudoClassesByDates,
+                    defaultTooltipText,
+                    ViewSettings.DEFAULT);
+        }
+
+        static YearView newYearCanvasView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
+            return newYearCanvasView(
+                    calendarStateControl,
+                    dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    PseudoClassesByDates.copiedFrom(pseudoClassesByDates),
+                    defaultTooltipText,
+                    settings);
+        }
+
+        static YearView newYearCanvasView(
+                Calendar.State.Control calendarStateControl,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                Day.MouseCallback mouseCallback,
+                PseudoClassesByDates pseudoClassesByDates,
+                Function<LocalDate, String> defaultTooltipText,
+                ViewSettings settings) {
+            return new YearCanvasViewImpl(
+                    calendarStateControl,
+                    (DayInfoCachedState) dayInfoControl,
+                    dayInfoToString,
+                    mouseCallback,
+                    pseudoClassesByDates,
+                    defaultTooltipText,
+                    settings);
         }
 
         @Override
         Region node();
 
+        /*
+         * Detaches the view from Calendar.State, Day.Info.Control, PseudoClassesByDates and midnight timer,
+         * so it is not updated anymore and can be garbage collected. Must be called on JavaFX thread.
+         * */
+        void dispose();
+
     }
 
     interface State {
@@ -3,15 +3,23 @@ package diarsid.desktop.ui.components.calendar.api;
 import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
+import diarsid.desktop.ui.components.calendar.impl.DayInfoAsyncRepository;
 import diarsid.desktop.ui.components.calendar.impl.DayInfoCachedState;
 import diarsid.support.javafx.mouse.ClickType;
 import diarsid.support.objects.references.Possible;
 
+import static java.time.temporal.ChronoUnit.MONTHS;
+
 public interface Day {
 
     interface Info {
@@ -36,6 +44,30 @@ public interface Day {
 
             Map<LocalDate, Day.Info> findAllBy(Year year);
 
+            /*
+             * Should be overridden if underlying storage is able to query a range of dates at once.
+             * Default implementation falls back to queries by year or by months.
+             * */
+            default Map<LocalDate, Day.Info> findAllBetween(LocalDate from, LocalDate toInclusive) {
+                Map<LocalDate, Day.Info> infos = new HashMap<>();
+
+                if ( from.getDayOfYear() == 1 && toInclusive.equals(from.withDayOfYear(from.lengthOfYear())) ) {
+                    infos.putAll(this.findAllBy(Year.of(from.getYear())));
+                    return infos;
+                }
+
+                YearMonth month = YearMonth.from(from);
+                YearMonth lastMonth = YearMonth.from(toInclusive);
+                while ( ! month.isAfter(lastMonth) ) {
+                    infos.putAll(this.findAllBy(month));
+                    month = month.plusMonths(1);
+                }
+
+                infos.keySet().removeIf(date -> date.isBefore(from) || date.isAfter(toInclusive));
+
+                return infos;
+            }
+
             /*
              * logic to be overridden if updates made by Day.Info.Control.set(...) need to be persisted in some
              * underlying storage.
@@ -44,16 +76,181 @@ public interface Day {
             default boolean update(Day.Info dayInfo) {
                 return false;
             }
+
+            /*
+             * Non-blocking counterpart of Day.Info.Repository. Day.Info.Control loads all data through it, so
+             * slow storage never blocks JavaFX thread. Returned futures can be completed on any thread.
+             * */
+            interface Async {
+
+                static Async asyncOver(Day.Info.Repository repository, Executor executor) {
+                    return new DayInfoAsyncRepository(repository, executor);
+                }
+
+                CompletableFuture<Optional<Day.Info>> findBy(LocalDate date);
+
+                CompletableFuture<Map<LocalDate, Day.Info>> findAllBy(YearMonth month);
+
+                CompletableFuture<Map<LocalDate, Day.Info>> findAllBy(Year year);
+
+                default CompletableFuture<Map<LocalDate, Day.Info>> findAllBetween(LocalDate from, LocalDate toInclusive) {
+                    List<CompletableFuture<Map<LocalDate, Day.Info>>> queries = new ArrayList<>();
+                    YearMonth month = YearMonth.from(from);
+                    YearMonth lastMonth = YearMonth.from(toInclusive);
+                    while ( ! month.isAfter(lastMonth) ) {
+                        queries.add(this.findAllBy(month));
+                        month = month.plusMonths(1);
+                    }
+
+                    return CompletableFuture
+                            .allOf(queries.toArray(CompletableFuture[]::new))
+                            .thenApply(nothing -> {
+                                Map<LocalDate, Day.Info> infos = new HashMap<>();
+                                for ( var query : queries ) {
+                                    infos.putAll(query.join());
+                                }
+                                infos.keySet().removeIf(date -> date.isBefore(from) || date.isAfter(toInclusive));
+                                return infos;
+                            });
+                }
+
+                default CompletableFuture<Boolean> update(Day.Info dayInfo) {
+                    return CompletableFuture.completedFuture(false);
+                }
+            }
         }
 
         interface Control {
 
+            int DEFAULT_PREFETCH_DEPTH = 1;
+
             static Day.Info.Control newDayInfoControl(Day.Info.Repository repository) {
                 return new DayInfoCachedState(repository);
             }
 
+            static Day.Info.Control newDayInfoControl(Day.Info.Repository repository, Executor executor) {
+                return new DayInfoCachedState(Day.Info.Repository.Async.asyncOver(repository, executor));
+            }
+
+            static Day.Info.Control newDayInfoControl(Day.Info.Repository.Async repository) {
+                return new DayInfoCachedState(repository);
+            }
+
+            static Day.Info.Control newDayInfoControl(Day.Info.Repository.Async repository, Eviction eviction) {
+                return new DayInfoCachedState(repository, eviction);
+            }
+
+            /*
+             * prefetchDepth - how many next pages of months or years are loaded in advance when a view pages
+             * them sequentially, 0 disables prefetching. Prefetch queries wait until foreground loads complete.
+             * */
+            static Day.Info.Control newDayInfoControl(
+                    Day.Info.Repository.Async repository, Eviction eviction, int prefetchDepth) {
+                return new DayInfoCachedState(repository, eviction, prefetchDepth);
+            }
+
+            /*
+             * metrics - records repository calls, loads, cache hits and misses and listeners notifications.
+             * */
+            static Day.Info.Control newDayInfoControl(
+                    Day.Info.Repository.Async repository, Eviction eviction, int prefetchDepth, Metrics metrics) {
+                return new DayInfoCachedState(repository, eviction, prefetchDepth, metrics);
+            }
+
+            /*
+             * Defines which cached months should be dropped from memory. It is consulted after every
+             * change of cached data. Months holding Day.Info given by set(...) or setAll(...) are not
+             * offered to eviction, as their data may not exist in repository. Cache is not bounded by default.
+             * */
+            interface Eviction {
+
+                static Eviction never() {
+                    return (months) -> List.of();
+                }
+
+                static Eviction leastRecentlyUsed(int maxMonths) {
+                    return (months) -> {
+                        int excess = months.size() - maxMonths;
+                        if ( excess <= 0 ) {
+                            return List.of();
+                        }
+                        return months.subList(0, excess);
+                    };
+                }
+
+                static Eviction outside(Calendar.State state, int monthsAround) {
+                    return (months) -> {
+                        YearMonth stateMonth = state.yearMonth();
+                        List<YearMonth> toEvict = new ArrayList<>();
+                        for ( YearMonth month : months ) {
+                            if ( Math.abs(MONTHS.between(stateMonth, month)) > monthsAround ) {
+                                toEvict.add(month);
+                            }
+                        }
+                        return toEvict;
+                    };
+                }
+
+                /*
+                 * Given months are ordered from least to most recently used.
+                 * */
+                List<YearMonth> monthsToEvict(List<YearMonth> cachedMonths);
+            }
+
+            interface Statistics {
+
+                int cachedDays();
+
+                int cachedMonths();
+
+                long evictedMonths();
+
+                /*
+                 * Months requested by views that were already loaded or being loaded.
+                 * */
+                long monthHits();
+
+                /*
+                 * Months requested by views that had to be queried from repository.
+                 * */
+                long monthMisses();
+
+                long prefetchedMonths();
+
+                /*
+                 * Changes of dates or months made by set(...), refresh(...) or loads that were merged into
+                 * not yet dispatched changes of the same dates or months.
+                 * */
+                long mergedChanges();
+
+                /*
+                 * Changes of dates that were dispatched as changes of whole months, because producers
+                 * outran dispatching to listeners.
+                 * */
+                long widenedChanges();
+            }
+
+            Statistics statistics();
+
+            /*
+             * Can be called on any thread and never waits for listeners. Listeners are notified later on
+             * JavaFX thread, changes made until then on any thread are collected and delivered at once.
+             * */
             void set(Day.Info dayInfo);
 
+            /*
+             * Applies all given Day.Info under one lock of cache and notifies listeners once about all
+             * changed dates. Can be called on any thread.
+             * */
+            void setAll(Collection<Day.Info> dayInfos);
+
+            /*
+             * Removes Day.Info of given dates from cache, the same way as setAll(...) applies them.
+             * Underlying repository is not affected. Months of given dates stay loaded, so loads do not query
+             * them again and removed dates stay absent until these months are refreshed.
+             * */
+            void removeAll(Collection<LocalDate> dates);
+
             void refresh(Year year);
 
             void refresh(YearMonth month);
@@ -0,0 +1,58 @@
+package diarsid.desktop.ui.components.calendar.api;
+
+/*
+ * Instrumentation of calendar internals. All methods can be invoked from any thread and must be cheap,
+ * as they are invoked on hot paths, including JavaFX thread.
+ * Every method does nothing by default, so implementations can record only what they need.
+ * */
+public interface Metrics {
+
+    Metrics NONE = new Metrics() { };
+
+    enum RepositoryCall {
+        FIND_BY_DATE,
+        FIND_ALL_BETWEEN
+    }
+
+    enum View {
+        MONTH,
+        YEAR,
+        YEAR_CANVAS
+    }
+
+    /*
+     * Time from a call of Day.Info.Repository.Async method to completion of its result.
+     * */
+    default void repositoryCalled(RepositoryCall call, long nanos) {
+    }
+
+    /*
+     * Count of Day.Info loaded by one repository query.
+     * */
+    default void loaded(int dayInfos) {
+    }
+
+    /*
+     * Months requested by views that were already loaded or being loaded.
+     * */
+    default void monthHits(int months) {
+    }
+
+    /*
+     * Months requested by views that had to be queried from repository.
+     * */
+    default void monthMisses(int months) {
+    }
+
+    /*
+     * Time of notifying all Day.Info change listeners about one set of changes.
+     * */
+    default void listenersNotified(int listeners, long nanos) {
+    }
+
+    /*
+     * Time of filling a view with days of its current month or year.
+     * */
+    default void filled(View view, long nanos) {
+    }
+}
@@ -0,0 +1,58 @@
+package diarsid.desktop.ui.components.calendar.api;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import javafx.css.PseudoClass;
+
+import diarsid.desktop.ui.components.calendar.impl.PseudoClassesIndexedByDates;
+import diarsid.support.javafx.css.pseudoclasses.PseudoClassesBoundTo;
+
+/*
+ * Pseudo classes that views apply to days of given dates.
+ * */
+public interface PseudoClassesByDates {
+
+    /*
+     * Pseudo classes indexed by dates, views visit only the dates they show.
+     * Can be changed from any thread.
+     * */
+    static PseudoClassesByDates.Control newPseudoClassesByDates() {
+        return new PseudoClassesIndexedByDates();
+    }
+
+    /*
+     * Indexed copy of pseudo classes bound to dates by PseudoClassesBoundTo, made once. PseudoClassesBoundTo
+     * changes cannot be observed, so changes made after the copy are not shown by views using it.
+     * Use newPseudoClassesByDates() for pseudo classes that change.
+     * */
+    static PseudoClassesByDates copiedFrom(PseudoClassesBoundTo<LocalDate> pseudoClassesBoundTo) {
+        return PseudoClassesIndexedByDates.copyOf(pseudoClassesBoundTo::forEach);
+    }
+
+    /*
+     * Listener is invoked on the thread that made a change, in the order changes are made.
+     * */
+    interface ChangesListener {
+
+        void onSet(LocalDate date, PseudoClass pseudoClass, boolean active);
+
+        void onRemove(LocalDate date, PseudoClass pseudoClass);
+    }
+
+    void forEachBetween(LocalDate from, LocalDate toInclusive, BiConsumer<LocalDate, Map<PseudoClass, Boolean>> action);
+
+    void add(ChangesListener changesListener);
+
+    void remove(ChangesListener changesListener);
+
+    interface Control extends PseudoClassesByDates {
+
+        void set(LocalDate date, PseudoClass pseudoClass, boolean active);
+
+        void remove(LocalDate date, PseudoClass pseudoClass);
+
+        void removeAll(LocalDate date);
+    }
+}
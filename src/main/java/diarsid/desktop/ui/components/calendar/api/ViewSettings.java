@@ -0,0 +1,140 @@
+package diarsid.desktop.ui.components.calendar.api;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import diarsid.support.objects.references.Possible;
+import diarsid.support.objects.references.References;
+
+public class ViewSettings {
+
+    public enum TooltipText {
+        /* tooltip text of a day is built on every change of a day or its Day.Info */
+        EAGER,
+        /* tooltip text of a day is built only when tooltip is about to be shown */
+        LAZY
+    }
+
+    public enum Tooltips {
+        /* every day has its own Tooltip */
+        PER_DAY,
+        /* one Tooltip per view is shown for a hovered day and filled with its text */
+        SHARED
+    }
+
+    public static class Builder {
+
+        private Duration navigationCoalescing;
+        private Clock clock;
+        private TooltipText tooltipText;
+        private boolean tooltipTextsPrerendering;
+        private Tooltips tooltips;
+        private Metrics metrics;
+
+        private Builder() {
+            this.clock = Clock.systemDefaultZone();
+            this.tooltipText = TooltipText.EAGER;
+            this.tooltipTextsPrerendering = false;
+            this.tooltips = Tooltips.PER_DAY;
+            this.metrics = Metrics.NONE;
+        }
+
+        public static Builder create() {
+            return new Builder();
+        }
+
+        /*
+         * Calendar.State changes made within given time window are collapsed into one load and fill of
+         * a view for the latest date. Duration.ZERO collapses changes made within one JavaFX pulse.
+         * */
+        public Builder withNavigationCoalescing(Duration window) {
+            this.navigationCoalescing = window;
+            return this;
+        }
+
+        /*
+         * Clock defines today and moments of midnight rollover for views.
+         * */
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder withTooltipText(TooltipText tooltipText) {
+            this.tooltipText = tooltipText;
+            return this;
+        }
+
+        /*
+         * Tooltip texts of Day.Info are memoized in any case. If prerendering is enabled, texts of all
+         * loaded Day.Info are also rendered in background in advance, before their tooltips are shown.
+         * */
+        public Builder withTooltipTextsPrerendering(boolean prerendering) {
+            this.tooltipTextsPrerendering = prerendering;
+            return this;
+        }
+
+        /*
+         * Tooltips.SHARED is applied by Calendar.YearView, where hundreds of per-day Tooltip popups are
+         * the main part of memory and construction time of a view.
+         * */
+        public Builder withTooltips(Tooltips tooltips) {
+            this.tooltips = tooltips;
+            return this;
+        }
+
+        /*
+         * Metrics record duration of filling a view with days, Metrics.NONE by default.
+         * */
+        public Builder withMetrics(Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public ViewSettings build() {
+            return new ViewSettings(this);
+        }
+    }
+
+    public static final ViewSettings DEFAULT = Builder.create().build();
+
+    private final Possible<Duration> navigationCoalescing;
+    private final Clock clock;
+    private final TooltipText tooltipText;
+    private final boolean tooltipTextsPrerendering;
+    private final Tooltips tooltips;
+    private final Metrics metrics;
+
+    private ViewSettings(Builder builder) {
+        this.navigationCoalescing = References.simplePossibleWith(builder.navigationCoalescing);
+        this.clock = builder.clock;
+        this.tooltipText = builder.tooltipText;
+        this.tooltipTextsPrerendering = builder.tooltipTextsPrerendering;
+        this.tooltips = builder.tooltips;
+        this.metrics = builder.metrics;
+    }
+
+    public Possible<Duration> navigationCoalescing() {
+        return this.navigationCoalescing;
+    }
+
+    public Clock clock() {
+        return this.clock;
+    }
+
+    public TooltipText tooltipText() {
+        return this.tooltipText;
+    }
+
+    public boolean tooltipTextsPrerendering() {
+        return this.tooltipTextsPrerendering;
+    }
+
+    public Tooltips tooltips() {
+        return this.tooltips;
+    }
+
+    public Metrics metrics() {
+        return this.metrics;
+    }
+}
@@ -0,0 +1,103 @@
+package diarsid.desktop.ui.components.calendar.api.defaultimpl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock-free histogram of non-negative values with power of 2 buckets. Percentiles are approximated by
+ * upper bounds of buckets, so they are accurate within factor of 2.
+ * */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+    private final AtomicLongArray buckets;
+
+    public Histogram() {
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+        this.buckets = new AtomicLongArray(BUCKETS);
+    }
+
+    public void record(long value) {
+        if ( value < 0 ) {
+            value = 0;
+        }
+
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+        this.buckets.incrementAndGet(bucketOf(value));
+    }
+
+    public long count() {
+        return this.count.sum();
+    }
+
+    public long sum() {
+        return this.sum.sum();
+    }
+
+    public long max() {
+        return this.max.get();
+    }
+
+    public double mean() {
+        long count = this.count();
+        return count == 0 ? 0 : (double) this.sum() / count;
+    }
+
+    /*
+     * percentile - from 0 to 1, e.g. 0.99
+     * */
+    public long percentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for ( int i = 0; i < BUCKETS; i++ ) {
+            counts[i] = this.buckets.get(i);
+            total = total + counts[i];
+        }
+
+        if ( total == 0 ) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long passed = 0;
+        for ( int i = 0; i < BUCKETS; i++ ) {
+            passed = passed + counts[i];
+            if ( passed >= rank ) {
+                return Math.min(upperBoundOf(i), this.max());
+            }
+        }
+
+        return this.max();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "count=" + this.count() +
+                ", mean=" + this.mean() +
+                ", p50=" + this.percentile(0.5) +
+                ", p99=" + this.percentile(0.99) +
+                ", max=" + this.max() +
+                '}';
+    }
+
+    private static int bucketOf(long value) {
+        return BUCKETS - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if ( bucket >= BUCKETS - 1 ) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,123 @@
+package diarsid.desktop.ui.components.calendar.api.defaultimpl;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import diarsid.desktop.ui.components.calendar.api.Metrics;
+
+/*
+ * Keeps all recorded values in memory. Latencies are recorded in nanoseconds. Values can be read at any
+ * moment through histograms or all at once through snapshot().
+ * */
+public class InMemoryMetrics implements Metrics {
+
+    private final Map<RepositoryCall, Histogram> repositoryCalls;
+    private final Histogram loads;
+    private final LongAdder monthHits;
+    private final LongAdder monthMisses;
+    private final Histogram listenersNotifications;
+    private final Map<View, Histogram> fills;
+
+    public InMemoryMetrics() {
+        this.repositoryCalls = new EnumMap<>(RepositoryCall.class);
+        for ( RepositoryCall call : RepositoryCall.values() ) {
+            this.repositoryCalls.put(call, new Histogram());
+        }
+        this.loads = new Histogram();
+        this.monthHits = new LongAdder();
+        this.monthMisses = new LongAdder();
+        this.listenersNotifications = new Histogram();
+        this.fills = new EnumMap<>(View.class);
+        for ( View view : View.values() ) {
+            this.fills.put(view, new Histogram());
+        }
+    }
+
+    @Override
+    public void repositoryCalled(RepositoryCall call, long nanos) {
+        this.repositoryCalls.get(call).record(nanos);
+    }
+
+    @Override
+    public void loaded(int dayInfos) {
+        this.loads.record(dayInfos);
+    }
+
+    @Override
+    public void monthHits(int months) {
+        this.monthHits.add(months);
+    }
+
+    @Override
+    public void monthMisses(int months) {
+        this.monthMisses.add(months);
+    }
+
+    @Override
+    public void listenersNotified(int listeners, long nanos) {
+        this.listenersNotifications.record(nanos);
+    }
+
+    @Override
+    public void filled(View view, long nanos) {
+        this.fills.get(view).record(nanos);
+    }
+
+    public Histogram repositoryCalls(RepositoryCall call) {
+        return this.repositoryCalls.get(call);
+    }
+
+    public Histogram loads() {
+        return this.loads;
+    }
+
+    public long monthHits() {
+        return this.monthHits.sum();
+    }
+
+    public long monthMisses() {
+        return this.monthMisses.sum();
+    }
+
+    public Histogram listenersNotifications() {
+        return this.listenersNotifications;
+    }
+
+    public Histogram fills(View view) {
+        return this.fills.get(view);
+    }
+
+    /*
+     * Flat view of all values, suitable for exporting to a monitoring system, e.g.
+     * repository.find_all_between.p99 -> 1234567
+     * */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for ( RepositoryCall call : RepositoryCall.values() ) {
+            put(snapshot, "repository." + call.name().toLowerCase(), this.repositoryCalls.get(call));
+        }
+        put(snapshot, "loads", this.loads);
+        snapshot.put("months.hits", this.monthHits());
+        snapshot.put("months.misses", this.monthMisses());
+        put(snapshot, "listeners.notifications", this.listenersNotifications);
+        for ( View view : View.values() ) {
+            put(snapshot, "fills." + view.name().toLowerCase(), this.fills.get(view));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryMetrics" + this.snapshot();
+    }
+
+    private static void put(Map<String, Long> snapshot, String name, Histogram histogram) {
+        snapshot.put(name + ".count", histogram.count());
+        snapshot.put(name + ".sum", histogram.sum());
+        snapshot.put(name + ".p50", histogram.percentile(0.5));
+        snapshot.put(name + ".p99", histogram.percentile(0.99));
+        snapshot.put(name + ".max", histogram.max());
+    }
+}
@@ -0,0 +1,74 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.util.Arrays;
+
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+
+/*
+ * Pseudo classes given by PseudoClassesByDates and applied to a node of one day. Day has only a few of them
+ * at once, so they are kept in arrays of the node that are reused by every fill and searched linearly.
+ * Must be used from JavaFX thread.
+ * */
+class AppliedPseudoClasses {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private PseudoClass[] pseudoClasses;
+    private boolean[] actives;
+    private int count;
+
+    AppliedPseudoClasses() {
+        this.pseudoClasses = new PseudoClass[INITIAL_CAPACITY];
+        this.actives = new boolean[INITIAL_CAPACITY];
+        this.count = 0;
+    }
+
+    void apply(Node node, PseudoClass pseudoClass, boolean active) {
+        node.pseudoClassStateChanged(pseudoClass, active);
+
+        int i = this.indexOf(pseudoClass);
+        if ( i < 0 ) {
+            if ( this.count == this.pseudoClasses.length ) {
+                this.pseudoClasses = Arrays.copyOf(this.pseudoClasses, this.count * 2);
+                this.actives = Arrays.copyOf(this.actives, this.count * 2);
+            }
+            i = this.count;
+            this.pseudoClasses[i] = pseudoClass;
+            this.count++;
+        }
+        this.actives[i] = active;
+    }
+
+    void revert(Node node, PseudoClass pseudoClass) {
+        int i = this.indexOf(pseudoClass);
+        if ( i < 0 ) {
+            return;
+        }
+
+        node.pseudoClassStateChanged(pseudoClass, ! this.actives[i]);
+
+        int last = this.count - 1;
+        this.pseudoClasses[i] = this.pseudoClasses[last];
+        this.actives[i] = this.actives[last];
+        this.pseudoClasses[last] = null;
+        this.count = last;
+    }
+
+    void revertAll(Node node) {
+        for ( int i = 0; i < this.count; i++ ) {
+            node.pseudoClassStateChanged(this.pseudoClasses[i], ! this.actives[i]);
+            this.pseudoClasses[i] = null;
+        }
+        this.count = 0;
+    }
+
+    private int indexOf(PseudoClass pseudoClass) {
+        for ( int i = 0; i < this.count; i++ ) {
+            if ( this.pseudoClasses[i].equals(pseudoClass) ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
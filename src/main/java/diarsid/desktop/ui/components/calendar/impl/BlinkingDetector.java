@@ -37,7 +37,6 @@ public class BlinkingDetector {
             Change c2 = this.changes.get(last - 2);
             Change c1 = this.changes.get(last - 3);
             long millisDiff = c4.millis - c1.millis;
-            System.out.println(millisDiff);
 
             boolean blinking =
                     c4.value == c2.value &&
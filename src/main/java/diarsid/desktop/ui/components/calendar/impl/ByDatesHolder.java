@@ -7,9 +7,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static java.util.Collections.emptyList;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 public class ByDatesHolder<T> {
 
@@ -43,6 +45,23 @@ public class ByDatesHolder<T> {
         return ts;
     }
 
+    /*
+     * Every held T affected by changes is given to action exactly once.
+     * */
+    void forEachAffectedBy(DayInfoChanges changes, Consumer<T> action) {
+        for ( YearMonth month : changes.months() ) {
+            this.findBy(month).forEach(action);
+        }
+
+        T t;
+        for ( LocalDate date : changes.dates() ) {
+            t = this.tByDate.get(date);
+            if ( nonNull(t) ) {
+                action.accept(t);
+            }
+        }
+    }
+
     void put(LocalDate date, T t) {
         this.tByDate.put(date, t);
 
@@ -0,0 +1,138 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Java Flight Recorder events of calendar. All of them are disabled by default and should be enabled in
+ * a recording settings, e.g. diarsid.calendar.Fill#enabled=true or in JMC.
+ *
+ * Events are created only if their type is enabled, so disabled events cost one volatile read and
+ * allocate nothing on hot paths.
+ * */
+final class CalendarEvents {
+
+    private static final String CATEGORY = "Calendar";
+
+    @Name("diarsid.calendar.Load")
+    @Label("Day.Info Load")
+    @Description("Range query of Day.Info from repository and caching of its result")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class Load extends Event {
+
+        @Label("From")
+        String from;
+
+        @Label("To Inclusive")
+        String toInclusive;
+
+        @Label("Loading")
+        String loading;
+
+        @Label("Day.Info Count")
+        int dayInfos;
+    }
+
+    @Name("diarsid.calendar.RepositoryCall")
+    @Label("Repository Call")
+    @Description("Call of Day.Info.Repository.Async method until its future completion")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class RepositoryCall extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Arguments")
+        String arguments;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("diarsid.calendar.Fill")
+    @Label("View Fill")
+    @Description("Filling of a view with days of its month or year")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class Fill extends Event {
+
+        @Label("View")
+        String view;
+
+        @Label("Period")
+        String period;
+
+        @Label("Cells Touched")
+        int cells;
+    }
+
+    @Name("diarsid.calendar.ListenersDispatch")
+    @Label("Listeners Dispatch")
+    @Description("Notification of Day.Info ChangesListeners about one set of changes")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class ListenersDispatch extends Event {
+
+        @Label("Change")
+        String change;
+
+        @Label("Listeners")
+        int listeners;
+    }
+
+    @Name("diarsid.calendar.Midnight")
+    @Label("Midnight Rollover")
+    @Description("Run of all actions registered in MidnightTimer after date change")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class Midnight extends Event {
+
+        @Label("Date")
+        String date;
+
+        @Label("Actions")
+        int actions;
+    }
+
+    private static final EventType LOAD = EventType.getEventType(Load.class);
+    private static final EventType REPOSITORY_CALL = EventType.getEventType(RepositoryCall.class);
+    private static final EventType FILL = EventType.getEventType(Fill.class);
+    private static final EventType LISTENERS_DISPATCH = EventType.getEventType(ListenersDispatch.class);
+    private static final EventType MIDNIGHT = EventType.getEventType(Midnight.class);
+
+    private CalendarEvents() {
+    }
+
+    static boolean isLoadEnabled() {
+        return LOAD.isEnabled();
+    }
+
+    static boolean isRepositoryCallEnabled() {
+        return REPOSITORY_CALL.isEnabled();
+    }
+
+    static boolean isFillEnabled() {
+        return FILL.isEnabled();
+    }
+
+    static boolean isListenersDispatchEnabled() {
+        return LISTENERS_DISPATCH.isEnabled();
+    }
+
+    static boolean isMidnightEnabled() {
+        return MIDNIGHT.isEnabled();
+    }
+}
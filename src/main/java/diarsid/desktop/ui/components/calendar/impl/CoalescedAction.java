@@ -0,0 +1,75 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.Duration;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+
+import diarsid.support.objects.references.Possible;
+
+import static java.util.Objects.nonNull;
+
+/*
+ * Runs action once for all requests made within a time window after the first of them, or within
+ * one JavaFX pulse if the window is zero. Without a window action is run on every request.
+ * Must be used from JavaFX thread.
+ * */
+public class CoalescedAction {
+
+    private final Runnable action;
+    private final boolean coalescing;
+    private final PauseTransition window;
+    private boolean scheduled;
+
+    public CoalescedAction(Possible<Duration> window, Runnable action) {
+        this.action = action;
+        this.coalescing = window.isPresent();
+        this.scheduled = false;
+
+        if ( this.coalescing && ! window.get().isZero() ) {
+            this.window = new PauseTransition(javafx.util.Duration.millis(window.get().toMillis()));
+            this.window.setOnFinished(event -> this.run());
+        }
+        else {
+            this.window = null;
+        }
+    }
+
+    public void request() {
+        if ( ! this.coalescing ) {
+            this.action.run();
+            return;
+        }
+
+        if ( this.scheduled ) {
+            return;
+        }
+
+        this.scheduled = true;
+        if ( nonNull(this.window) ) {
+            this.window.playFromStart();
+        }
+        else {
+            Platform.runLater(this::run);
+        }
+    }
+
+    /*
+     * Drops a scheduled run, if any.
+     * */
+    public void cancel() {
+        this.scheduled = false;
+        if ( nonNull(this.window) ) {
+            this.window.stop();
+        }
+    }
+
+    private void run() {
+        if ( ! this.scheduled ) {
+            return;
+        }
+
+        this.scheduled = false;
+        this.action.run();
+    }
+}
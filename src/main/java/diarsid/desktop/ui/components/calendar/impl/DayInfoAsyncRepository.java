@@ -0,0 +1,74 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.support.concurrency.threads.IncrementThreadsNaming;
+import diarsid.support.concurrency.threads.NamedThreadFactory;
+import diarsid.support.concurrency.threads.ThreadsNaming;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+public class DayInfoAsyncRepository implements Day.Info.Repository.Async {
+
+    private static class SharedExecutor {
+
+        private static final ExecutorService INSTANCE;
+
+        static {
+            String threadName = DayInfoAsyncRepository.class.getCanonicalName() + ".%s";
+            ThreadsNaming naming = new IncrementThreadsNaming(threadName);
+            NamedThreadFactory ntf = new NamedThreadFactory(naming, (runnable) -> {
+                Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+            INSTANCE = Executors.newSingleThreadExecutor(ntf);
+        }
+    }
+
+    private final Day.Info.Repository repository;
+    private final Executor executor;
+
+    public DayInfoAsyncRepository(Day.Info.Repository repository, Executor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    public DayInfoAsyncRepository(Day.Info.Repository repository) {
+        this(repository, SharedExecutor.INSTANCE);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Day.Info>> findBy(LocalDate date) {
+        return supplyAsync(() -> this.repository.findBy(date), this.executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<LocalDate, Day.Info>> findAllBy(YearMonth month) {
+        return supplyAsync(() -> this.repository.findAllBy(month), this.executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<LocalDate, Day.Info>> findAllBy(Year year) {
+        return supplyAsync(() -> this.repository.findAllBy(year), this.executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<LocalDate, Day.Info>> findAllBetween(LocalDate from, LocalDate toInclusive) {
+        return supplyAsync(() -> this.repository.findAllBetween(from, toInclusive), this.executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(Day.Info dayInfo) {
+        return supplyAsync(() -> this.repository.update(dayInfo), this.executor);
+    }
+}
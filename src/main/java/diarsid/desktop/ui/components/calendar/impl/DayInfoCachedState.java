@@ -4,52 +4,572 @@ import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.desktop.ui.components.calendar.api.Metrics;
 
-import static java.util.Collections.synchronizedList;
+import static java.time.temporal.ChronoUnit.MONTHS;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+
+import static diarsid.desktop.ui.components.calendar.api.Metrics.RepositoryCall.FIND_ALL_BETWEEN;
+import static diarsid.desktop.ui.components.calendar.api.Metrics.RepositoryCall.FIND_BY_DATE;
+import static diarsid.desktop.ui.components.calendar.impl.DayInfoCachedState.Loading.FORCED;
+import static diarsid.desktop.ui.components.calendar.impl.DayInfoCachedState.Loading.PREFETCH;
+import static diarsid.desktop.ui.components.calendar.impl.DayInfoCachedState.Loading.REGULAR;
 
 public class DayInfoCachedState implements Day.Info.Control, DayInfoState {
 
     private static final Logger log = LoggerFactory.getLogger(DayInfoCachedState.class);
 
-    private final Day.Info.Repository repository;
-    private final Map<LocalDate, Day.Info> infoByDate;
+    private static final int MAX_BRIDGED_GAP = 2;
+    /* changes of at least that many dates of one month made by setAll or removeAll are delivered as a month change */
+    private static final int MIN_DATES_OF_CHANGED_MONTH = 8;
+
+    enum Loading {
+        REGULAR,
+        FORCED,
+        PREFETCH
+    }
+
+    /*
+     * Loading of months started by one load call. Other load calls can join it while it is in progress.
+     * Its queries are cancelled only when all calls that joined it are cancelled.
+     * */
+    private static class SharedLoading {
+
+        private final List<YearMonth> months;
+        private final List<CompletableFuture<?>> queries;
+        private final CompletableFuture<Void> loading;
+        /* guarded by cachedMonths */
+        private int joiners;
+
+        private SharedLoading(List<YearMonth> months, List<CompletableFuture<?>> queries) {
+            this.months = months;
+            this.queries = queries;
+            this.loading = new CompletableFuture<>();
+            this.joiners = 0;
+        }
+    }
+
+    private class CacheStatistics implements Statistics {
+
+        @Override
+        public int cachedDays() {
+            return infoStore.size();
+        }
+
+        @Override
+        public int cachedMonths() {
+            synchronized ( cachedMonths ) {
+                return cachedMonths.size();
+            }
+        }
+
+        @Override
+        public long evictedMonths() {
+            return evictedMonths.get();
+        }
+
+        @Override
+        public long monthHits() {
+            return monthHits.get();
+        }
+
+        @Override
+        public long monthMisses() {
+            return monthMisses.get();
+        }
+
+        @Override
+        public long prefetchedMonths() {
+            return prefetchedMonths.get();
+        }
+
+        @Override
+        public long mergedChanges() {
+            return changesDispatcher.mergedChanges();
+        }
+
+        @Override
+        public long widenedChanges() {
+            return changesDispatcher.widenedChanges();
+        }
+    }
+
+    private final Day.Info.Repository.Async repository;
+    private final Eviction eviction;
+    private final int prefetchDepth;
+    private final DayInfoChangesDispatcher changesDispatcher;
+    private final Metrics metrics;
+    private final DayInfoStore infoStore;
+    private final Map<Day.Info.ToString, DayInfoTexts> textsByToStrings;
+    private final Executor prerenderExecutor;
+    /* access-ordered: from least to most recently used month, guards all writes to infoStore */
+    private final Set<YearMonth> cachedMonths;
+    /* months entirely loaded from repository, subset of cachedMonths */
+    private final Set<YearMonth> loadedMonths;
+    /* months holding Day.Info given by set(...) or setAll(...), which may be absent in repository, never evicted */
+    private final Set<YearMonth> setMonths;
+    private final Map<YearMonth, SharedLoading> loadingMonths;
+    private final AtomicLong evictedMonths;
+    private final AtomicLong monthHits;
+    private final AtomicLong monthMisses;
+    private final AtomicLong prefetchedMonths;
+    /* guarded by cachedMonths */
+    private int foregroundLoadings;
+    /* guarded by cachedMonths */
+    private List<YearMonth> pendingPrefetch;
+    private final Statistics statistics;
     protected List<ChangesListener> changesListener;
 
     public DayInfoCachedState(Day.Info.Repository repository) {
+        this(new DayInfoAsyncRepository(repository));
+    }
+
+    public DayInfoCachedState(Day.Info.Repository.Async repository) {
+        this(repository, Eviction.never());
+    }
+
+    public DayInfoCachedState(Day.Info.Repository.Async repository, Eviction eviction) {
+        this(repository, eviction, DEFAULT_PREFETCH_DEPTH);
+    }
+
+    public DayInfoCachedState(Day.Info.Repository.Async repository, Eviction eviction, int prefetchDepth) {
+        this(repository, eviction, prefetchDepth, JavaFXThreadExecutor.INSTANCE);
+    }
+
+    public DayInfoCachedState(
+            Day.Info.Repository.Async repository, Eviction eviction, int prefetchDepth, Metrics metrics) {
+        this(repository, eviction, prefetchDepth, JavaFXThreadExecutor.INSTANCE, metrics);
+    }
+
+    public DayInfoCachedState(
+            Day.Info.Repository.Async repository,
+            Eviction eviction,
+            int prefetchDepth,
+            Executor changesExecutor) {
+        this(repository, eviction, prefetchDepth, changesExecutor, Metrics.NONE);
+    }
+
+    /*
+     * changesExecutor defines a thread on which ChangesListeners are notified about loaded and changed data,
+     * it is JavaFX thread by default. Notifications are never run inline on JavaFX thread, so listeners
+     * are not run under cache lock and a view that starts a load is filled before it is notified.
+     * */
+    public DayInfoCachedState(
+            Day.Info.Repository.Async repository,
+            Eviction eviction,
+            int prefetchDepth,
+            Executor changesExecutor,
+            Metrics metrics) {
         this.repository = repository;
-        this.infoByDate = new ConcurrentHashMap<>();
-        this.changesListener = synchronizedList(new ArrayList<>());
+        this.eviction = eviction;
+        this.prefetchDepth = prefetchDepth;
+        this.changesDispatcher = new DayInfoChangesDispatcher(dispatchExecutorOf(changesExecutor), this::changed);
+        this.metrics = metrics;
+        this.infoStore = new DayInfoStore();
+        this.textsByToStrings = new ConcurrentHashMap<>();
+        this.prerenderExecutor = ForkJoinPool.commonPool();
+        this.cachedMonths = newSetFromMap(new LinkedHashMap<>(16, 0.75f, true));
+        this.loadedMonths = new HashSet<>();
+        this.setMonths = new HashSet<>();
+        this.loadingMonths = new HashMap<>();
+        this.evictedMonths = new AtomicLong();
+        this.monthHits = new AtomicLong();
+        this.monthMisses = new AtomicLong();
+        this.prefetchedMonths = new AtomicLong();
+        this.statistics = new CacheStatistics();
+        this.changesListener = new CopyOnWriteArrayList<>();
     }
 
     @Override
-    public void load(YearMonth prev, YearMonth current, YearMonth next) {
-        infoByDate.putAll(this.repository.findAllBy(prev));
-        infoByDate.putAll(this.repository.findAllBy(current));
-        infoByDate.putAll(this.repository.findAllBy(next));
+    public CompletableFuture<Void> load(YearMonth prev, YearMonth current, YearMonth next) {
+        return this.load(List.of(prev, current, next), REGULAR);
+    }
 
-        this.changed(prev, current, next);
+    @Override
+    public CompletableFuture<Void> load(Year year) {
+        return this.load(monthsOf(year), REGULAR);
     }
 
     @Override
-    public void load(Year year) {
-        this.infoByDate.putAll(this.repository.findAllBy(year));
-        this.changed(year);
+    public CompletableFuture<Void> loadAfterNavigation(
+            YearMonth navigatedFrom, YearMonth prev, YearMonth current, YearMonth next) {
+        CompletableFuture<Void> loading = this.load(prev, current, next);
+        this.prefetchAfter(navigatedFrom, current);
+        return loading;
+    }
+
+    @Override
+    public CompletableFuture<Void> loadAfterNavigation(Year navigatedFrom, Year year) {
+        CompletableFuture<Void> loading = this.load(year);
+        this.prefetchAfter(navigatedFrom, year);
+        return loading;
+    }
+
+    /*
+     * Only months that are neither loaded nor being loaded are queried from repository, unless forced.
+     * Missing months are queried by range queries, one per run of missing months. Runs separated by
+     * not more than MAX_BRIDGED_GAP months are merged, as querying few months again is cheaper than
+     * an additional query.
+     * Listeners are notified once about all months queried by this call, after all its queries complete.
+     * Cancellation of returned future leaves all loadings made or joined by this call. Queries of a loading
+     * are cancelled, so their results are discarded, only when every call that joined it has left it.
+     * */
+    private CompletableFuture<Void> load(List<YearMonth> months, Loading type) {
+        List<SharedLoading> joined = new ArrayList<>();
+        List<CompletableFuture<?>> queries = new ArrayList<>();
+        List<CompletableFuture<List<YearMonth>>> storings = new ArrayList<>();
+        List<YearMonth> queriedMonths = new ArrayList<>();
+        List<YearMonth> missingMonths = new ArrayList<>();
+        SharedLoading queried = null;
+
+        int hits = 0;
+        synchronized ( this.cachedMonths ) {
+            SharedLoading loading;
+            for ( YearMonth month : months ) {
+                if ( type != FORCED ) {
+                    if ( this.loadedMonths.contains(month) ) {
+                        this.touch(month);
+                        if ( type == REGULAR ) {
+                            hits++;
+                        }
+                        continue;
+                    }
+
+                    loading = this.loadingMonths.get(month);
+                    if ( nonNull(loading) ) {
+                        if ( ! joined.contains(loading) ) {
+                            joined.add(loading);
+                        }
+                        if ( type == REGULAR ) {
+                            hits++;
+                        }
+                        continue;
+                    }
+                }
+
+                missingMonths.add(month);
+            }
+
+            if ( type == REGULAR ) {
+                this.monthHits.addAndGet(hits);
+                this.monthMisses.addAndGet(missingMonths.size());
+                this.metrics.monthHits(hits);
+                this.metrics.monthMisses(missingMonths.size());
+            }
+            else if ( type == PREFETCH ) {
+                this.prefetchedMonths.addAndGet(missingMonths.size());
+            }
+
+            missingMonths.sort(naturalOrder());
+            int runStart = 0;
+            for ( int i = 1; i <= missingMonths.size(); i++ ) {
+                boolean runEnds =
+                        i == missingMonths.size() ||
+                        MONTHS.between(missingMonths.get(i - 1), missingMonths.get(i)) > MAX_BRIDGED_GAP + 1;
+
+                if ( runEnds ) {
+                    YearMonth firstMonth = missingMonths.get(runStart);
+                    YearMonth lastMonth = missingMonths.get(i - 1);
+                    List<YearMonth> runMonths = monthsBetween(firstMonth, lastMonth);
+
+                    LocalDate from = firstMonth.atDay(1);
+                    LocalDate toInclusive = lastMonth.atEndOfMonth();
+                    var query = this.timed(
+                            FIND_ALL_BETWEEN, from, toInclusive,
+                            () -> this.repository.findAllBetween(from, toInclusive));
+                    queries.add(query);
+                    storings.add(this.query(runMonths, type, query));
+                    queriedMonths.addAll(runMonths);
+                    runStart = i;
+                }
+            }
+
+            if ( ! storings.isEmpty() ) {
+                queried = this.sharedLoadingOf(queriedMonths, queries, type);
+                joined.add(queried);
+            }
+
+            for ( SharedLoading sharedLoading : joined ) {
+                sharedLoading.joiners++;
+            }
+        }
+
+        if ( nonNull(queried) ) {
+            this.changedAfter(queried, storings);
+        }
+
+        CompletableFuture<Void> loaded = allOf(joined
+                .stream()
+                .map(sharedLoading -> sharedLoading.loading)
+                .toArray(CompletableFuture[]::new));
+
+        if ( ! joined.isEmpty() ) {
+            loaded.whenComplete((nothing, failure) -> {
+                if ( loaded.isCancelled() ) {
+                    this.leave(joined);
+                }
+            });
+        }
+
+        return loaded;
+    }
+
+    /*
+     * Loadings left by all their joiners are removed at once, so subsequent loads do not join them, and
+     * their queries are cancelled.
+     * */
+    private void leave(List<SharedLoading> joined) {
+        List<SharedLoading> abandoned = new ArrayList<>();
+        synchronized ( this.cachedMonths ) {
+            for ( SharedLoading sharedLoading : joined ) {
+                sharedLoading.joiners--;
+                if ( sharedLoading.joiners == 0 && ! sharedLoading.loading.isDone() ) {
+                    for ( YearMonth month : sharedLoading.months ) {
+                        this.loadingMonths.remove(month, sharedLoading);
+                    }
+                    abandoned.add(sharedLoading);
+                }
+            }
+        }
+
+        for ( SharedLoading sharedLoading : abandoned ) {
+            sharedLoading.queries.forEach(query -> query.cancel(false));
+        }
+    }
+
+    /*
+     * If months are paged sequentially, next pages in the same direction are prefetched.
+     * */
+    private void prefetchAfter(YearMonth navigatedFrom, YearMonth month) {
+        if ( this.prefetchDepth < 1 ) {
+            return;
+        }
+
+        long step = MONTHS.between(navigatedFrom, month);
+        if ( Math.abs(step) != 1 && Math.abs(step) != 12 ) {
+            return;
+        }
+
+        List<YearMonth> monthsToPrefetch = new ArrayList<>();
+        YearMonth page = month;
+        for ( int i = 0; i < this.prefetchDepth; i++ ) {
+            page = page.plusMonths(step);
+            for ( YearMonth pageMonth : List.of(page.minusMonths(1), page, page.plusMonths(1)) ) {
+                if ( ! monthsToPrefetch.contains(pageMonth) ) {
+                    monthsToPrefetch.add(pageMonth);
+                }
+            }
+        }
+
+        this.prefetch(monthsToPrefetch);
+    }
+
+    private void prefetchAfter(Year navigatedFrom, Year year) {
+        if ( this.prefetchDepth < 1 ) {
+            return;
+        }
+
+        int step = year.getValue() - navigatedFrom.getValue();
+        if ( Math.abs(step) != 1 ) {
+            return;
+        }
+
+        List<YearMonth> monthsToPrefetch = new ArrayList<>();
+        for ( int i = 1; i <= this.prefetchDepth; i++ ) {
+            monthsToPrefetch.addAll(monthsOf(year.plusYears((long) step * i)));
+        }
+
+        this.prefetch(monthsToPrefetch);
+    }
+
+    /*
+     * Prefetch is queued behind foreground loads, so it never competes with them for repository executor.
+     * Only the latest prefetch is kept queued, as earlier ones are made for pages left already.
+     * */
+    private void prefetch(List<YearMonth> months) {
+        synchronized ( this.cachedMonths ) {
+            if ( this.foregroundLoadings > 0 ) {
+                this.pendingPrefetch = months;
+                return;
+            }
+        }
+
+        this.load(months, PREFETCH);
+    }
+
+    /*
+     * Returned future completes with given months after query result is stored.
+     * */
+    private CompletableFuture<List<YearMonth>> query(
+            List<YearMonth> months,
+            Loading type,
+            CompletableFuture<Map<LocalDate, Day.Info>> query) {
+        CalendarEvents.Load event;
+        if ( CalendarEvents.isLoadEnabled() ) {
+            event = new CalendarEvents.Load();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+
+        return query
+                .thenApply(infos -> {
+                    this.metrics.loaded(infos.size());
+                    synchronized ( this.cachedMonths ) {
+                        for ( YearMonth month : months ) {
+                            this.textsByToStrings.values().forEach(texts -> texts.invalidate(month));
+                        }
+                        this.store(infos);
+                        for ( YearMonth month : months ) {
+                            this.cached(month);
+                            this.loadedMonths.add(month);
+                        }
+                        this.evictIfNecessary();
+                    }
+                    this.prerenderTexts(infos.values());
+
+                    if ( nonNull(event) ) {
+                        event.from = months.get(0).atDay(1).toString();
+                        event.toInclusive = months.get(months.size() - 1).atEndOfMonth().toString();
+                        event.loading = type.name();
+                        event.dayInfos = infos.size();
+                        event.commit();
+                    }
+
+                    return months;
+                });
+    }
+
+    /*
+     * must be called under cachedMonths lock
+     * */
+    private SharedLoading sharedLoadingOf(List<YearMonth> months, List<CompletableFuture<?>> queries, Loading type) {
+        SharedLoading sharedLoading = new SharedLoading(months, queries);
+        logged(sharedLoading.loading);
+
+        for ( YearMonth month : months ) {
+            this.loadingMonths.put(month, sharedLoading);
+        }
+
+        boolean foreground = type != PREFETCH;
+        if ( foreground ) {
+            this.foregroundLoadings++;
+        }
+
+        sharedLoading.loading.whenComplete((nothing, failure) -> {
+            List<YearMonth> prefetch = null;
+            synchronized ( this.cachedMonths ) {
+                for ( YearMonth month : months ) {
+                    this.loadingMonths.remove(month, sharedLoading);
+                }
+                if ( foreground ) {
+                    this.foregroundLoadings--;
+                    if ( this.foregroundLoadings == 0 ) {
+                        prefetch = this.pendingPrefetch;
+                        this.pendingPrefetch = null;
+                    }
+                }
+            }
+
+            if ( nonNull(prefetch) ) {
+                this.load(prefetch, PREFETCH);
+            }
+        });
+
+        return sharedLoading;
+    }
+
+    /*
+     * must be called outside of cachedMonths lock, as already completed queries notify listeners inline
+     * if changesExecutor runs them inline
+     *
+     * Months of all successfully stored queries are passed to changes dispatcher even if some queries failed,
+     * so they are coalesced and ordered with other changes. Loading completes after they are passed and fails
+     * if any of queries failed.
+     * */
+    private void changedAfter(SharedLoading sharedLoading, List<CompletableFuture<List<YearMonth>>> storings) {
+        CompletableFuture<Void> stored = allOf(storings.toArray(CompletableFuture[]::new));
+
+        stored
+                .handle((nothing, failure) -> {
+                    DayInfoChanges.Builder changes = DayInfoChanges.builder();
+                    for ( CompletableFuture<List<YearMonth>> storing : storings ) {
+                        if ( ! storing.isCompletedExceptionally() ) {
+                            changes.addMonths(storing.join());
+                        }
+                    }
+                    return changes.build();
+                })
+                .thenAccept(this.changesDispatcher::changed)
+                .thenCompose(nothing -> stored)
+                .whenComplete((nothing, failure) -> {
+                    if ( isNull(failure) ) {
+                        sharedLoading.loading.complete(null);
+                    }
+                    else {
+                        sharedLoading.loading.completeExceptionally(failure);
+                    }
+                });
     }
 
     @Override
     public Optional<Day.Info> findDayInfoOf(LocalDate date) {
-        Day.Info dayInfo = this.infoByDate.get(date);
-        return Optional.ofNullable(dayInfo);
+        return Optional.ofNullable(this.infoStore.findOrNull(date));
+    }
+
+    @Override
+    public Day.Info findDayInfoOrNull(LocalDate date) {
+        return this.infoStore.findOrNull(date);
+    }
+
+    @Override
+    public DayInfoTexts textsOf(Day.Info.ToString dayInfoToString, boolean prerenderLoaded) {
+        DayInfoTexts texts = this.textsByToStrings.compute(dayInfoToString, (toString, existingTexts) -> {
+            DayInfoTexts usedTexts = isNull(existingTexts) ? new DayInfoTexts(toString) : existingTexts;
+            usedTexts.used();
+            return usedTexts;
+        });
+        if ( prerenderLoaded ) {
+            texts.prerenderLoaded();
+        }
+        return texts;
+    }
+
+    @Override
+    public void release(DayInfoTexts texts) {
+        this.textsByToStrings.computeIfPresent(texts.dayInfoToString(), (toString, existingTexts) -> {
+            if ( existingTexts != texts ) {
+                return existingTexts;
+            }
+            return texts.released() ? null : texts;
+        });
     }
 
     @Override
@@ -57,11 +577,26 @@ public class DayInfoCachedState implements Day.Info.Control, DayInfoState {
         this.changesListener.add(changesListener);
     }
 
+    @Override
+    public void remove(ChangesListener changesListener) {
+        this.changesListener.remove(changesListener);
+    }
+
+    @Override
+    public Statistics statistics() {
+        return this.statistics;
+    }
+
     @Override
     public void set(Day.Info dayInfo) {
         LocalDate date = dayInfo.date();
-        Day.Info dayInfoOld = this.infoByDate.get(date);
-        this.infoByDate.put(date, dayInfo);
+        Day.Info dayInfoOld;
+        synchronized ( this.cachedMonths ) {
+            dayInfoOld = this.infoStore.put(dayInfo);
+            this.textsByToStrings.values().forEach(texts -> texts.invalidate(date));
+            this.cachedBySet(YearMonth.from(date));
+            this.evictIfNecessary();
+        }
 
         boolean notChanged = false;
         if ( nonNull(dayInfoOld) ) {
@@ -71,67 +606,300 @@ public class DayInfoCachedState implements Day.Info.Control, DayInfoState {
         }
 
         if ( ! notChanged ) {
-            this.changed(date);
+            this.changesDispatcher.changed(date);
         }
     }
 
+    @Override
+    public void setAll(Collection<Day.Info> dayInfos) {
+        Set<LocalDate> changedDates = new LinkedHashSet<>();
+        synchronized ( this.cachedMonths ) {
+            LocalDate date;
+            Day.Info dayInfoOld;
+            for ( Day.Info dayInfo : dayInfos ) {
+                date = dayInfo.date();
+                dayInfoOld = this.infoStore.put(dayInfo);
+                if ( isNull(dayInfoOld) || ! dayInfoOld.equals(dayInfo) ) {
+                    changedDates.add(date);
+                }
+            }
+            this.changedInStore(changedDates);
+            for ( LocalDate changedDate : changedDates ) {
+                this.cachedBySet(YearMonth.from(changedDate));
+            }
+            this.evictIfNecessary();
+        }
+
+        this.changesDispatcher.changed(changesOf(changedDates));
+    }
+
+    /*
+     * Removal mirrors a removal made by application in repository, as set(...) mirrors a change, so months
+     * of removed dates are kept in loadedMonths and are not queried again by subsequent loads.
+     * */
+    @Override
+    public void removeAll(Collection<LocalDate> dates) {
+        Set<LocalDate> changedDates = new LinkedHashSet<>();
+        synchronized ( this.cachedMonths ) {
+            for ( LocalDate date : dates ) {
+                if ( nonNull(this.infoStore.remove(date)) ) {
+                    changedDates.add(date);
+                }
+            }
+            this.changedInStore(changedDates);
+        }
+
+        this.changesDispatcher.changed(changesOf(changedDates));
+    }
+
     @Override
     public void refresh(Year year) {
-        this.load(year);
+        this.load(monthsOf(year), FORCED);
     }
 
     @Override
     public void refresh(YearMonth month) {
-        this.load(
-                month.minusMonths(1),
-                month,
-                month.plusMonths(1));
+        this.load(List.of(month.minusMonths(1), month, month.plusMonths(1)), FORCED);
     }
 
     @Override
     public void refresh(LocalDate date) {
-        Optional<Day.Info> dayInfo = this.repository.findBy(date);
+        CompletableFuture<Void> loading = this
+                .timed(FIND_BY_DATE, date, date, () -> this.repository.findBy(date))
+                .thenAccept(dayInfo -> {
+                    if ( dayInfo.isEmpty() ) {
+                        return;
+                    }
+
+                    synchronized ( this.cachedMonths ) {
+                        this.infoStore.put(dayInfo.get());
+                        this.textsByToStrings.values().forEach(texts -> texts.invalidate(date));
+                        this.cached(YearMonth.from(date));
+                        this.evictIfNecessary();
+                    }
+                    this.changesDispatcher.changed(date);
+                });
+
+        logged(loading);
+    }
+
+    /* all methods below that mutate the cache must be called under cachedMonths lock */
+
+    private void store(Map<LocalDate, Day.Info> infos) {
+        for ( Day.Info dayInfo : infos.values() ) {
+            this.infoStore.put(dayInfo);
+            this.cached(YearMonth.from(dayInfo.date()));
+        }
+    }
+
+    private void changedInStore(Collection<LocalDate> dates) {
+        for ( DayInfoTexts texts : this.textsByToStrings.values() ) {
+            for ( LocalDate date : dates ) {
+                texts.invalidate(date);
+            }
+        }
+    }
+
+    private void cached(YearMonth month) {
+        this.cachedMonths.add(month);
+    }
+
+    private void cachedBySet(YearMonth month) {
+        this.cachedMonths.add(month);
+        this.setMonths.add(month);
+    }
+
+    private void touch(YearMonth month) {
+        if ( this.cachedMonths.contains(month) ) {
+            this.cachedMonths.add(month);
+        }
+    }
 
-        if ( dayInfo.isEmpty() ) {
+    private void evictIfNecessary() {
+        List<YearMonth> evictableMonths = new ArrayList<>(this.cachedMonths.size());
+        for ( YearMonth month : this.cachedMonths ) {
+            if ( ! this.setMonths.contains(month) ) {
+                evictableMonths.add(month);
+            }
+        }
+
+        if ( evictableMonths.isEmpty() ) {
             return;
         }
 
-        this.infoByDate.put(date, dayInfo.get());
-        this.changed(date);
+        List<YearMonth> monthsToEvict = this.eviction.monthsToEvict(evictableMonths);
+
+        for ( YearMonth month : monthsToEvict ) {
+            if ( this.cachedMonths.remove(month) ) {
+                this.loadedMonths.remove(month);
+                this.infoStore.removeAll(month);
+                this.textsByToStrings.values().forEach(texts -> texts.invalidate(month));
+                this.evictedMonths.incrementAndGet();
+            }
+        }
     }
 
-    private void changed(YearMonth prev, YearMonth current, YearMonth next) {
-        for ( var listener : this.changesListener ) {
-            try {
-                listener.onChange(prev);
-                listener.onChange(current);
-                listener.onChange(next);
+    private void prerenderTexts(Collection<Day.Info> dayInfos) {
+        if ( dayInfos.isEmpty() ) {
+            return;
+        }
+
+        List<Day.Info> dayInfosToRender = null;
+        for ( DayInfoTexts texts : this.textsByToStrings.values() ) {
+            if ( texts.isPrerendering() ) {
+                if ( isNull(dayInfosToRender) ) {
+                    dayInfosToRender = new ArrayList<>(dayInfos);
+                }
+                List<Day.Info> finalDayInfosToRender = dayInfosToRender;
+                this.prerenderExecutor.execute(() -> this.prerender(texts, finalDayInfosToRender));
             }
-            catch (Exception e) {
-                log.error(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Months can be evicted while texts are rendered in background. Texts of months that are not cached
+     * after rendering are dropped, otherwise nothing would invalidate them anymore.
+     * */
+    private void prerender(DayInfoTexts texts, List<Day.Info> dayInfos) {
+        texts.prerender(dayInfos);
+
+        Set<YearMonth> renderedMonths = new HashSet<>();
+        for ( Day.Info dayInfo : dayInfos ) {
+            renderedMonths.add(YearMonth.from(dayInfo.date()));
+        }
+
+        synchronized ( this.cachedMonths ) {
+            renderedMonths.removeIf(this.cachedMonths::contains);
+        }
+
+        for ( YearMonth evictedMonth : renderedMonths ) {
+            texts.invalidate(evictedMonth);
+        }
+    }
+
+    private <T> CompletableFuture<T> timed(
+            Metrics.RepositoryCall call,
+            LocalDate from,
+            LocalDate toInclusive,
+            Supplier<CompletableFuture<T>> repositoryCall) {
+        CalendarEvents.RepositoryCall event;
+        if ( CalendarEvents.isRepositoryCallEnabled() ) {
+            event = new CalendarEvents.RepositoryCall();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> query = repositoryCall.get();
+        query.whenComplete((result, failure) -> {
+            if ( isNull(failure) ) {
+                this.metrics.repositoryCalled(call, System.nanoTime() - start);
+            }
+
+            if ( nonNull(event) ) {
+                event.method = call.name();
+                event.arguments = from.equals(toInclusive) ? from.toString() : from + " - " + toInclusive;
+                event.failed = nonNull(failure);
+                event.commit();
             }
+        });
+        return query;
+    }
+
+    /*
+     * Changes made on JavaFX thread are not dispatched inline, so changes made during one pulse are
+     * dispatched together, and loads completed at once are not dispatched within the call that started them.
+     * */
+    private static Executor dispatchExecutorOf(Executor changesExecutor) {
+        if ( changesExecutor == JavaFXThreadExecutor.INSTANCE ) {
+            return JavaFXThreadExecutor.LATER;
         }
+        return changesExecutor;
     }
 
-    private void changed(Year year) {
-        for ( var listener : this.changesListener ) {
-            try {
-                listener.onChange(year);
+    private static CompletableFuture<Void> logged(CompletableFuture<Void> loading) {
+        loading.whenComplete((nothing, failure) -> {
+            if ( nonNull(failure) && ! isCancellation(failure) ) {
+                log.error(failure.getMessage(), failure);
             }
-            catch (Exception e) {
-                log.error(e.getMessage(), e);
+        });
+
+        return loading;
+    }
+
+    private static boolean isCancellation(Throwable failure) {
+        return failure instanceof CancellationException || failure.getCause() instanceof CancellationException;
+    }
+
+    private static DayInfoChanges changesOf(Collection<LocalDate> dates) {
+        Map<YearMonth, List<LocalDate>> datesByMonths = new HashMap<>();
+        for ( LocalDate date : dates ) {
+            datesByMonths.computeIfAbsent(YearMonth.from(date), month -> new ArrayList<>()).add(date);
+        }
+
+        DayInfoChanges.Builder changes = DayInfoChanges.builder();
+        datesByMonths.forEach((month, datesOfMonth) -> {
+            if ( datesOfMonth.size() >= MIN_DATES_OF_CHANGED_MONTH ) {
+                changes.add(month);
             }
+            else {
+                changes.addDates(datesOfMonth);
+            }
+        });
+
+        return changes.build();
+    }
+
+    private static List<YearMonth> monthsOf(Year year) {
+        List<YearMonth> months = new ArrayList<>(12);
+        for ( int month = 1; month <= 12; month++ ) {
+            months.add(year.atMonth(month));
+        }
+        return months;
+    }
+
+    private static List<YearMonth> monthsBetween(YearMonth first, YearMonth last) {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth month = first;
+        while ( ! month.isAfter(last) ) {
+            months.add(month);
+            month = month.plusMonths(1);
         }
+        return months;
     }
 
-    private void changed(LocalDate date) {
+    private void changed(DayInfoChanges changes) {
+        if ( changes.isEmpty() ) {
+            return;
+        }
+
+        CalendarEvents.ListenersDispatch event;
+        if ( CalendarEvents.isListenersDispatchEnabled() ) {
+            event = new CalendarEvents.ListenersDispatch();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+        long start = System.nanoTime();
+        int listeners = 0;
         for ( var listener : this.changesListener ) {
             try {
-                listener.onChange(date);
+                listener.onChanges(changes);
             }
             catch (Exception e) {
                 log.error(e.getMessage(), e);
             }
+            listeners++;
+        }
+        this.metrics.listenersNotified(listeners, System.nanoTime() - start);
+
+        if ( nonNull(event) && event.shouldCommit() ) {
+            event.change = changes.toString();
+            event.listeners = listeners;
+            event.commit();
         }
     }
 }
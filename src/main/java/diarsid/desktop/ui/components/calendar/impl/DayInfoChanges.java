@@ -0,0 +1,150 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+/*
+ * Set of Day.Info changes delivered to DayInfoState.ChangesListener at once. Changes are either whole
+ * months or single dates. Dates that belong to changed months are not included separately, so every
+ * changed date is covered exactly once.
+ * */
+public final class DayInfoChanges {
+
+    public static class Builder {
+
+        private final Set<YearMonth> months;
+        private final Set<LocalDate> dates;
+
+        private Builder() {
+            this.months = new LinkedHashSet<>();
+            this.dates = new HashSet<>();
+        }
+
+        public Builder add(YearMonth month) {
+            this.months.add(month);
+            return this;
+        }
+
+        public Builder add(LocalDate date) {
+            this.dates.add(date);
+            return this;
+        }
+
+        public Builder addMonths(Collection<YearMonth> months) {
+            this.months.addAll(months);
+            return this;
+        }
+
+        public Builder addDates(Collection<LocalDate> dates) {
+            this.dates.addAll(dates);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return this.months.isEmpty() && this.dates.isEmpty();
+        }
+
+        public DayInfoChanges build() {
+            List<YearMonth> months = new ArrayList<>(this.months);
+            months.sort(YearMonth::compareTo);
+
+            Set<LocalDate> dates = new HashSet<>();
+            for ( LocalDate date : this.dates ) {
+                if ( ! this.months.contains(YearMonth.from(date)) ) {
+                    dates.add(date);
+                }
+            }
+
+            return new DayInfoChanges(unmodifiableList(months), unmodifiableSet(dates));
+        }
+    }
+
+    private final List<YearMonth> months;
+    private final Set<LocalDate> dates;
+
+    private DayInfoChanges(List<YearMonth> months, Set<LocalDate> dates) {
+        this.months = months;
+        this.dates = dates;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static DayInfoChanges of(LocalDate date) {
+        return new DayInfoChanges(List.of(), Set.of(date));
+    }
+
+    public static DayInfoChanges of(List<YearMonth> months) {
+        return builder().addMonths(months).build();
+    }
+
+    /*
+     * Changed months in ascending order.
+     * */
+    public List<YearMonth> months() {
+        return this.months;
+    }
+
+    /*
+     * Changed dates that do not belong to any of changed months.
+     * */
+    public Set<LocalDate> dates() {
+        return this.dates;
+    }
+
+    public boolean isEmpty() {
+        return this.months.isEmpty() && this.dates.isEmpty();
+    }
+
+    public boolean affects(LocalDate date) {
+        if ( this.dates.contains(date) ) {
+            return true;
+        }
+
+        for ( YearMonth month : this.months ) {
+            if ( month.getYear() == date.getYear() && month.getMonthValue() == date.getMonthValue() ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * Returns a year if changed months are exactly all months of it.
+     * */
+    Year wholeYearOrNull() {
+        if ( this.months.size() != 12 ) {
+            return null;
+        }
+
+        int year = this.months.get(0).getYear();
+        for ( int i = 0; i < this.months.size(); i++ ) {
+            YearMonth month = this.months.get(i);
+            if ( month.getYear() != year || month.getMonthValue() != i + 1 ) {
+                return null;
+            }
+        }
+
+        return Year.of(year);
+    }
+
+    @Override
+    public String toString() {
+        return "DayInfoChanges{" +
+                "months=" + this.months +
+                ", dates=" + this.dates +
+                '}';
+    }
+}
@@ -0,0 +1,164 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * Passes changes of dates made on any thread to a dispatch executor, which should postpone dispatch, as
+ * Platform.runLater does. Dates changed until dispatch happens are delivered at once, so all changes made
+ * during one JavaFX pulse are dispatched together. Repeated changes of a pending date are merged, as listeners
+ * read the latest Day.Info anyway.
+ *
+ * Producers never wait. Pending dates are bounded, and when producers outrun dispatching, a date that does
+ * not fit is widened to its whole month, so a change is never lost, but is dispatched as a coarser one.
+ * */
+public class DayInfoChangesDispatcher {
+
+    public static final int DEFAULT_MAX_PENDING_DATES = 1024;
+
+    private final Executor executor;
+    private final Consumer<DayInfoChanges> dispatch;
+    private final int maxPendingDates;
+    /* guarded by this */
+    private final Set<LocalDate> pendingDates;
+    /* guarded by this */
+    private final Set<YearMonth> pendingMonths;
+    /* guarded by this */
+    private boolean scheduled;
+    private final AtomicLong mergedChanges;
+    private final AtomicLong widenedChanges;
+
+    public DayInfoChangesDispatcher(Executor executor, Consumer<DayInfoChanges> dispatch) {
+        this(executor, dispatch, DEFAULT_MAX_PENDING_DATES);
+    }
+
+    public DayInfoChangesDispatcher(Executor executor, Consumer<DayInfoChanges> dispatch, int maxPendingDates) {
+        this.executor = executor;
+        this.dispatch = dispatch;
+        this.maxPendingDates = maxPendingDates;
+        this.pendingDates = new HashSet<>();
+        this.pendingMonths = new LinkedHashSet<>();
+        this.scheduled = false;
+        this.mergedChanges = new AtomicLong();
+        this.widenedChanges = new AtomicLong();
+    }
+
+    public void changed(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        boolean schedule;
+
+        synchronized ( this ) {
+            if ( this.isPending(date, month) ) {
+                this.mergedChanges.incrementAndGet();
+                return;
+            }
+
+            this.add(date, month);
+            schedule = this.schedule();
+        }
+
+        if ( schedule ) {
+            this.executor.execute(this::dispatch);
+        }
+    }
+
+    /*
+     * Changes are added to pending ones at once, so they are dispatched together.
+     * Dates that do not fit pending dates limit are widened to their months.
+     * */
+    public void changed(DayInfoChanges changes) {
+        if ( changes.isEmpty() ) {
+            return;
+        }
+
+        boolean schedule;
+        synchronized ( this ) {
+            for ( YearMonth month : changes.months() ) {
+                if ( this.pendingMonths.contains(month) ) {
+                    this.mergedChanges.incrementAndGet();
+                }
+                else {
+                    this.widen(month);
+                }
+            }
+
+            for ( LocalDate date : changes.dates() ) {
+                this.add(date, YearMonth.from(date));
+            }
+
+            schedule = this.schedule();
+        }
+
+        if ( schedule ) {
+            this.executor.execute(this::dispatch);
+        }
+    }
+
+    /*
+     * Changes of dates that were already pending, so they were dispatched together with them.
+     * */
+    public long mergedChanges() {
+        return this.mergedChanges.get();
+    }
+
+    /*
+     * Changes of dates that were dispatched as changes of their whole months because of pending dates limit.
+     * */
+    public long widenedChanges() {
+        return this.widenedChanges.get();
+    }
+
+    private boolean isPending(LocalDate date, YearMonth month) {
+        return this.pendingDates.contains(date) || this.pendingMonths.contains(month);
+    }
+
+    /* must be called under this lock */
+    private void add(LocalDate date, YearMonth month) {
+        if ( this.isPending(date, month) ) {
+            this.mergedChanges.incrementAndGet();
+        }
+        else if ( this.pendingDates.size() >= this.maxPendingDates ) {
+            this.widen(month);
+            this.widenedChanges.incrementAndGet();
+        }
+        else {
+            this.pendingDates.add(date);
+        }
+    }
+
+    /* must be called under this lock */
+    private void widen(YearMonth month) {
+        this.pendingDates.removeIf(pendingDate ->
+                pendingDate.getYear() == month.getYear() &&
+                pendingDate.getMonthValue() == month.getMonthValue());
+        this.pendingMonths.add(month);
+    }
+
+    /* must be called under this lock, returns true if dispatch has to be scheduled */
+    private boolean schedule() {
+        boolean schedule = ! this.scheduled;
+        this.scheduled = true;
+        return schedule;
+    }
+
+    private void dispatch() {
+        DayInfoChanges changes;
+        synchronized ( this ) {
+            this.scheduled = false;
+            changes = DayInfoChanges.builder()
+                    .addMonths(this.pendingMonths)
+                    .addDates(this.pendingDates)
+                    .build();
+            this.pendingMonths.clear();
+            this.pendingDates.clear();
+        }
+
+        this.dispatch.accept(changes);
+    }
+}
@@ -4,9 +4,12 @@ import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import diarsid.desktop.ui.components.calendar.api.Day;
 
+import static java.util.Objects.nonNull;
+
 public interface DayInfoState {
 
     public static interface ChangesListener {
@@ -16,17 +19,71 @@ public interface DayInfoState {
         void onChange(YearMonth month);
 
         void onChange(Year year);
+
+        /*
+         * All changes made by one load or one update are delivered at once. Default implementation calls
+         * onChange(...) per year, month or date, listeners that can process changes in batch should override it.
+         * */
+        default void onChanges(DayInfoChanges changes) {
+            Year year = changes.wholeYearOrNull();
+            if ( nonNull(year) ) {
+                this.onChange(year);
+            }
+            else {
+                for ( YearMonth month : changes.months() ) {
+                    this.onChange(month);
+                }
+            }
+
+            for ( LocalDate date : changes.dates() ) {
+                this.onChange(date);
+            }
+        }
     }
 
-    void load(YearMonth prev, YearMonth current, YearMonth next);
+    /*
+     * Loading is asynchronous: returned future completes after loaded data is stored and
+     * ChangesListeners are notified about it. Cancel returned future if loaded data is not needed anymore.
+     * When one loading replaces another, start the new one before cancelling the previous one, so months
+     * needed by both keep their queries instead of being queried again.
+     * */
+    CompletableFuture<Void> load(YearMonth prev, YearMonth current, YearMonth next);
+
+    CompletableFuture<Void> load(Year year);
+
+    /*
+     * Same as load(prev, current, next) made by a caller that has shown navigatedFrom month before. Direction
+     * of navigation is given by each caller, so callers sharing this state do not mix their directions up.
+     * If months are paged sequentially, next pages in the same direction may be prefetched.
+     * */
+    CompletableFuture<Void> loadAfterNavigation(YearMonth navigatedFrom, YearMonth prev, YearMonth current, YearMonth next);
 
-    void load(Year year);
+    CompletableFuture<Void> loadAfterNavigation(Year navigatedFrom, Year year);
 
-    default void load(int yearInt) {
-        this.load(Year.of(yearInt));
+    default CompletableFuture<Void> load(int yearInt) {
+        return this.load(Year.of(yearInt));
     }
 
     Optional<Day.Info> findDayInfoOf(LocalDate date);
 
+    /*
+     * Allocation-free lookup for frequent calls from views.
+     * */
+    Day.Info findDayInfoOrNull(LocalDate date);
+
+    /*
+     * Memoized texts of Day.Info rendered by given Day.Info.ToString, shared by all views that use it.
+     * If prerenderLoaded is true, texts of all loaded Day.Info are rendered in background in advance.
+     * */
+    DayInfoTexts textsOf(Day.Info.ToString dayInfoToString, boolean prerenderLoaded);
+
+    /*
+     * Every call of textsOf(...) must be paired with this call when given texts are not used anymore.
+     * Texts are dropped when the last view using them releases them.
+     * */
+    void release(DayInfoTexts texts);
+
     void add(ChangesListener changesListener);
+
+    void remove(ChangesListener changesListener);
 }
@@ -0,0 +1,175 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+ * Day.Info storage paged by years: each page is an array of all days of a year indexed by day of year.
+ * Pages are found by year in an open addressing table, so lookups do not allocate.
+ * Lookups are lock-free and can be made from any thread, modifications are serialized.
+ * */
+public class DayInfoStore {
+
+    private static final int MIN_PAGES_TABLE_LENGTH = 8;
+
+    private static class Page {
+
+        private final int year;
+        private final AtomicReferenceArray<Day.Info> days;
+        private int size;
+
+        private Page(int year) {
+            this.year = year;
+            this.days = new AtomicReferenceArray<>(Year.of(year).length());
+            this.size = 0;
+        }
+    }
+
+    private volatile Page[] pages;
+    private volatile int size;
+    private int pagesCount;
+
+    public DayInfoStore() {
+        this.pages = new Page[MIN_PAGES_TABLE_LENGTH];
+        this.size = 0;
+        this.pagesCount = 0;
+    }
+
+    public Day.Info findOrNull(LocalDate date) {
+        Page page = this.pageOf(date.getYear());
+        if ( isNull(page) ) {
+            return null;
+        }
+        return page.days.get(date.getDayOfYear() - 1);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public synchronized Day.Info put(Day.Info dayInfo) {
+        LocalDate date = dayInfo.date();
+        Page page = this.pageOf(date.getYear());
+        if ( isNull(page) ) {
+            page = new Page(date.getYear());
+            this.addPage(page);
+        }
+
+        Day.Info old = page.days.getAndSet(date.getDayOfYear() - 1, dayInfo);
+        if ( isNull(old) ) {
+            page.size++;
+            this.size++;
+        }
+
+        return old;
+    }
+
+    public synchronized Day.Info remove(LocalDate date) {
+        Page page = this.pageOf(date.getYear());
+        if ( isNull(page) ) {
+            return null;
+        }
+
+        Day.Info old = page.days.getAndSet(date.getDayOfYear() - 1, null);
+        if ( nonNull(old) ) {
+            page.size--;
+            this.size--;
+            if ( page.size == 0 ) {
+                this.removePage(page);
+            }
+        }
+
+        return old;
+    }
+
+    public synchronized void removeAll(YearMonth month) {
+        Page page = this.pageOf(month.getYear());
+        if ( isNull(page) ) {
+            return;
+        }
+
+        int first = month.atDay(1).getDayOfYear() - 1;
+        int last = first + month.lengthOfMonth();
+        for ( int i = first; i < last; i++ ) {
+            if ( nonNull(page.days.getAndSet(i, null)) ) {
+                page.size--;
+                this.size--;
+            }
+        }
+
+        if ( page.size == 0 ) {
+            this.removePage(page);
+        }
+    }
+
+    private Page pageOf(int year) {
+        Page[] pages = this.pages;
+        int mask = pages.length - 1;
+        int i = hash(year) & mask;
+
+        Page page;
+        while ( nonNull(page = pages[i]) ) {
+            if ( page.year == year ) {
+                return page;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /* pages table is never modified in place - it is replaced, so lock-free lookups always see a consistent one */
+
+    private void addPage(Page page) {
+        this.pagesCount++;
+        Page[] oldPages = this.pages;
+        int length = oldPages.length;
+        while ( this.pagesCount * 2 > length ) {
+            length = length * 2;
+        }
+
+        Page[] newPages = new Page[length];
+        for ( Page oldPage : oldPages ) {
+            if ( nonNull(oldPage) ) {
+                place(newPages, oldPage);
+            }
+        }
+        place(newPages, page);
+
+        this.pages = newPages;
+    }
+
+    private void removePage(Page page) {
+        this.pagesCount--;
+        Page[] oldPages = this.pages;
+        Page[] newPages = new Page[oldPages.length];
+        for ( Page oldPage : oldPages ) {
+            if ( nonNull(oldPage) && oldPage != page ) {
+                place(newPages, oldPage);
+            }
+        }
+
+        this.pages = newPages;
+    }
+
+    private static void place(Page[] pages, Page page) {
+        int mask = pages.length - 1;
+        int i = hash(page.year) & mask;
+        while ( nonNull(pages[i]) ) {
+            i = (i + 1) & mask;
+        }
+        pages[i] = page;
+    }
+
+    private static int hash(int year) {
+        int h = year * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
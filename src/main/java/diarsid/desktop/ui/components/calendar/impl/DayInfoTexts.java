@@ -0,0 +1,132 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+ * Memoized texts of Day.Info rendered by one Day.Info.ToString. Text is reused while Day.Info instance
+ * for its date is the same. Texts can be rendered in advance on any thread.
+ *
+ * Rendered dates are indexed by months, so texts of a month are invalidated in O(days in month) when
+ * the month is loaded again or evicted from cache. Index of a month and rendered texts of its dates are
+ * changed together within a computation on the index entry of the month.
+ * */
+public class DayInfoTexts {
+
+    private static class Rendered {
+
+        private final Day.Info dayInfo;
+        private final String text;
+
+        private Rendered(Day.Info dayInfo, String text) {
+            this.dayInfo = dayInfo;
+            this.text = text;
+        }
+    }
+
+    private final Day.Info.ToString dayInfoToString;
+    private final Map<LocalDate, Rendered> renderedByDates;
+    private final Map<YearMonth, Set<LocalDate>> renderedDatesByMonths;
+    private volatile boolean prerendering;
+    /* count of views using these texts, guarded by DayInfoState */
+    private int users;
+
+    public DayInfoTexts(Day.Info.ToString dayInfoToString) {
+        this.dayInfoToString = dayInfoToString;
+        this.renderedByDates = new ConcurrentHashMap<>();
+        this.renderedDatesByMonths = new ConcurrentHashMap<>();
+        this.prerendering = false;
+    }
+
+    public String textOf(Day.Info dayInfo) {
+        LocalDate date = dayInfo.date();
+        Rendered rendered = this.renderedByDates.get(date);
+
+        if ( nonNull(rendered) && rendered.dayInfo == dayInfo ) {
+            return rendered.text;
+        }
+
+        return this.render(dayInfo);
+    }
+
+    Day.Info.ToString dayInfoToString() {
+        return this.dayInfoToString;
+    }
+
+    void used() {
+        this.users++;
+    }
+
+    /*
+     * Returns true if there are no more users left.
+     * */
+    boolean released() {
+        this.users--;
+        return this.users <= 0;
+    }
+
+    boolean isPrerendering() {
+        return this.prerendering;
+    }
+
+    void prerenderLoaded() {
+        this.prerendering = true;
+    }
+
+    void prerender(Collection<Day.Info> dayInfos) {
+        for ( Day.Info dayInfo : dayInfos ) {
+            this.textOf(dayInfo);
+        }
+    }
+
+    void invalidate(LocalDate date) {
+        this.renderedDatesByMonths.computeIfPresent(YearMonth.from(date), (month, dates) -> {
+            if ( dates.remove(date) ) {
+                this.renderedByDates.remove(date);
+            }
+            return dates.isEmpty() ? null : dates;
+        });
+    }
+
+    void invalidate(YearMonth month) {
+        this.renderedDatesByMonths.computeIfPresent(month, (sameMonth, dates) -> {
+            for ( LocalDate date : dates ) {
+                this.renderedByDates.remove(date);
+            }
+            return null;
+        });
+    }
+
+    private String render(Day.Info dayInfo) {
+        String text;
+        if ( dayInfo.customToString().isPresent() ) {
+            text = dayInfo.customToString().get().apply(dayInfo);
+        }
+        else {
+            text = this.dayInfoToString.apply(dayInfo);
+        }
+
+        LocalDate date = dayInfo.date();
+        Rendered rendered = new Rendered(dayInfo, text);
+        this.renderedDatesByMonths.compute(YearMonth.from(date), (month, dates) -> {
+            if ( isNull(dates) ) {
+                dates = new HashSet<>();
+            }
+            dates.add(date);
+            this.renderedByDates.put(date, rendered);
+            return dates;
+        });
+
+        return text;
+    }
+}
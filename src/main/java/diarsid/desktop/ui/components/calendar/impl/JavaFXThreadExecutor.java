@@ -0,0 +1,29 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.util.concurrent.Executor;
+
+import javafx.application.Platform;
+
+public class JavaFXThreadExecutor implements Executor {
+
+    public static final JavaFXThreadExecutor INSTANCE = new JavaFXThreadExecutor();
+
+    /*
+     * Postpones a command to JavaFX thread even when called on it, so commands submitted during one pulse
+     * run after it.
+     * */
+    public static final Executor LATER = Platform::runLater;
+
+    private JavaFXThreadExecutor() {
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if ( Platform.isFxApplicationThread() ) {
+            command.run();
+        }
+        else {
+            Platform.runLater(command);
+        }
+    }
+}
@@ -1,41 +1,37 @@
 package diarsid.desktop.ui.components.calendar.impl;
 
 import java.time.LocalDate;
-import java.time.Month;
-import java.util.Optional;
 import java.util.function.Function;
 
 import diarsid.desktop.ui.components.calendar.api.Day;
 
+import static java.util.Objects.nonNull;
+
 public class LabelTooltipDay extends LabeledWithTooltip<LocalDate> {
 
     public LabelTooltipDay(
             LocalDate date,
             Function<LocalDate, String> toLabelString,
-            Function<LocalDate, Optional<Day.Info>> dayInfoByDate,
+            Function<LocalDate, Day.Info> dayInfoOrNullByDate,
             Function<LocalDate, String> defaultTooltipText,
-            Day.Info.ToString dayInfoToString) {
+            DayInfoTexts dayInfoTexts,
+            boolean lazyTooltipText) {
         super(
                 date,
                 toLabelString,
                 (newDate) -> {
-                    Optional<Day.Info> dayInfoLoaded = dayInfoByDate.apply(newDate);
+                    Day.Info dayInfo = dayInfoOrNullByDate.apply(newDate);
 
                     String text;
-                    if ( dayInfoLoaded.isPresent() ) {
-                        var dayInfo = dayInfoLoaded.get();
-                        if ( dayInfo.customToString().isPresent() ) {
-                            text = dayInfo.customToString().get().apply(dayInfo);
-                        }
-                        else {
-                            text = dayInfoToString.apply(dayInfo);
-                        }
+                    if ( nonNull(dayInfo) ) {
+                        text = dayInfoTexts.textOf(dayInfo);
                     }
                     else {
                         text = defaultTooltipText.apply(newDate);
                     }
 
                     return text;
-                });
+                },
+                lazyTooltipText);
     }
 }
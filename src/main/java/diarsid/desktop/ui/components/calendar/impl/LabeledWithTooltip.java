@@ -9,29 +9,65 @@ import diarsid.support.javafx.components.Labeled;
 public class LabeledWithTooltip<T> extends Labeled<T> {
 
     protected final Function<T, String> toTooltipString;
+    private final boolean lazyTooltipText;
+    private boolean tooltipTextOutdated;
 
     public LabeledWithTooltip(
             T t,
             Function<T, String> toLabelString,
             Function<T, String> toTooltipString) {
+        this(t, toLabelString, toTooltipString, false);
+    }
+
+    /*
+     * lazyTooltipText - if true, tooltip text is only marked as outdated on changes and is built
+     * when tooltip is about to be shown.
+     * */
+    public LabeledWithTooltip(
+            T t,
+            Function<T, String> toLabelString,
+            Function<T, String> toTooltipString,
+            boolean lazyTooltipText) {
         super(t, toLabelString);
         this.toTooltipString = toTooltipString;
+        this.lazyTooltipText = lazyTooltipText;
 
         Tooltip tooltip = new Tooltip();
         super.setTooltip(tooltip);
-        this.fillTooltipText(super.property().get());
+
+        if ( this.lazyTooltipText ) {
+            this.tooltipTextOutdated = true;
+            tooltip.setOnShowing(event -> {
+                if ( this.tooltipTextOutdated ) {
+                    this.fillTooltipText(super.property().get());
+                }
+            });
+        }
+        else {
+            this.fillTooltipText(super.property().get());
+        }
 
         super.property().addListener((prop, oldV, newV) -> {
-            this.fillTooltipText(newV);
+            this.tooltipTextChanged();
         });
     }
 
+    private void tooltipTextChanged() {
+        if ( this.lazyTooltipText && ! super.getTooltip().isShowing() ) {
+            this.tooltipTextOutdated = true;
+        }
+        else {
+            this.fillTooltipText(super.property().get());
+        }
+    }
+
     private void fillTooltipText(T t) {
         String text = this.toTooltipString.apply(t);
         super.getTooltip().setText(text);
+        this.tooltipTextOutdated = false;
     }
 
     void refresh() {
-        this.fillTooltipText(super.property().get());
+        this.tooltipTextChanged();
     }
 }
@@ -1,42 +1,290 @@
 package diarsid.desktop.ui.components.calendar.impl;
 
-import java.time.LocalDateTime;
+import java.lang.ref.WeakReference;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import diarsid.support.concurrency.threads.IncrementThreadsNaming;
 import diarsid.support.concurrency.threads.NamedThreadFactory;
 import diarsid.support.concurrency.threads.ThreadsNaming;
 
 import static java.time.Duration.between;
-import static java.time.LocalDateTime.now;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
-import static diarsid.support.concurrency.threads.ThreadsUtil.shutdownAndWait;
-
+/*
+ * One daemon thread for all registered actions, started on first registration and stopped when no active
+ * registrations are left. All actions are run in one batch on JavaFX thread after each midnight. Owners
+ * of actions are weakly referenced, so registration does not prevent them from being garbage collected.
+ * Shared timer of a Clock is forgotten when it stops. Lookup of a shared timer, registration in it and its
+ * stop are made atomically on its entry of SHARED_BY_CLOCKS, so a stopping timer is never given to a new owner.
+ *
+ * Midnight is a local midnight of a given Clock. Timer is scheduled one-shot exactly at each next midnight,
+ * computed from the Clock, so DST transitions do not make it drift and it does not wake up between midnights.
+ * Actions are run only when the date really changes, so exactly once per day. If it wakes up before the
+ * date changes, next midnight is computed again. Changes of system clock or its time zone cannot be
+ * observed, clockChanged() should be called after them.
+ * */
 public class MidnightTimer {
 
-    private final ScheduledExecutorService async;
-    private final Runnable action;
-    private final ScheduledFuture<?> schedule;
+    private static final Logger log = LoggerFactory.getLogger(MidnightTimer.class);
+
+    private static final long AFTER_MIDNIGHT_MILLIS = 50;
+
+    public static class Registration<T> {
+
+        private final MidnightTimer timer;
+        private final WeakReference<T> owner;
+        private final Consumer<T> action;
+        private volatile boolean cancelled;
+
+        private Registration(MidnightTimer timer, T owner, Consumer<T> action) {
+            this.timer = timer;
+            this.owner = new WeakReference<>(owner);
+            this.action = action;
+            this.cancelled = false;
+        }
+
+        private boolean isActive() {
+            return ! this.cancelled && this.owner.get() != null;
+        }
+
+        private void run() {
+            T owner = this.owner.get();
+            if ( this.cancelled || isNull(owner) ) {
+                return;
+            }
+
+            try {
+                this.action.accept(owner);
+            }
+            catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+
+        MidnightTimer timer() {
+            return this.timer;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+            this.timer.unregister(this);
+        }
+    }
+
+    private static final Map<Clock, MidnightTimer> SHARED_BY_CLOCKS = new ConcurrentHashMap<>();
 
-    public MidnightTimer(String threadName, Runnable action) {
-        ThreadsNaming naming = new IncrementThreadsNaming(threadName + ".%s");
-        NamedThreadFactory ntf = new NamedThreadFactory(naming, Executors.defaultThreadFactory());
+    /*
+     * Registers action in the timer shared by all owners of given Clock, that runs actions on JavaFX thread.
+     * action should not capture owner - it is given to action as an argument
+     * */
+    @SuppressWarnings("unchecked")
+    public static <T> Registration<T> registerShared(Clock clock, T owner, Consumer<T> action) {
+        Registration<T>[] registration = new Registration[1];
+        SHARED_BY_CLOCKS.compute(clock, (sameClock, timer) -> {
+            if ( isNull(timer) ) {
+                timer = new MidnightTimer(sameClock, JavaFXThreadExecutor.INSTANCE, true);
+            }
+            registration[0] = timer.register(owner, action);
+            return timer;
+        });
+        return registration[0];
+    }
+
+    /*
+     * Checks date and computes next midnight again in all shared timers.
+     * */
+    public static void clockChanged() {
+        SHARED_BY_CLOCKS.values().forEach(MidnightTimer::scheduleNextCheck);
+    }
+
+    private final Clock clock;
+    private final Executor actionsExecutor;
+    private final boolean shared;
+    private final List<Registration<?>> registrations;
+    private ScheduledExecutorService async;
+    private ScheduledFuture<?> nextCheck;
+    private LocalDate date;
+
+    public MidnightTimer(Clock clock, Executor actionsExecutor) {
+        this(clock, actionsExecutor, false);
+    }
+
+    private MidnightTimer(Clock clock, Executor actionsExecutor, boolean shared) {
+        this.clock = clock;
+        this.actionsExecutor = actionsExecutor;
+        this.shared = shared;
+        this.registrations = new CopyOnWriteArrayList<>();
+    }
+
+    /*
+     * action should not capture owner - it is given to action as an argument
+     * */
+    public synchronized <T> Registration<T> register(T owner, Consumer<T> action) {
+        Registration<T> registration = new Registration<>(this, owner, action);
+        this.registrations.add(registration);
+        this.startIfNecessary();
+        return registration;
+    }
+
+    private void unregister(Registration<?> registration) {
+        this.registrations.remove(registration);
+        this.stopIfUnused();
+    }
+
+    private synchronized void startIfNecessary() {
+        if ( nonNull(this.async) ) {
+            return;
+        }
+
+        this.date = LocalDate.now(this.clock);
+
+        String threadName = this.getClass().getCanonicalName() + ".%s";
+        ThreadsNaming naming = new IncrementThreadsNaming(threadName);
+        NamedThreadFactory ntf = new NamedThreadFactory(naming, (runnable) -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
         this.async = Executors.newSingleThreadScheduledExecutor(ntf);
-        this.action = action;
 
-        LocalDateTime now = now();
-        LocalDateTime startOfNextDay = now.plusDays(1).withHour(0).withMinute(0).withSecond(1).withNano(0);
-        long initialDelay = (between(now, startOfNextDay).getSeconds() * 1000) - 100;
-        long period = 24 * 60 * 60 * 1000;
-        this.schedule = this.async.scheduleAtFixedRate(this.action, initialDelay, period, MILLISECONDS);
+        this.scheduleNextCheck();
+    }
+
+    /*
+     * Shared timer is stopped and forgotten within the same computation on its entry of SHARED_BY_CLOCKS
+     * as registerShared(...) uses, so they cannot interleave.
+     * */
+    private void stopIfUnused() {
+        if ( ! this.shared ) {
+            this.dropInactiveAndStopIfUnused();
+            return;
+        }
+
+        SHARED_BY_CLOCKS.computeIfPresent(this.clock, (sameClock, timer) -> {
+            if ( timer != this ) {
+                return timer;
+            }
+            return this.dropInactiveAndStopIfUnused() ? null : this;
+        });
+    }
+
+    /*
+     * Registrations of owners that were garbage collected without cancelling them are dropped here,
+     * on every check of date. Returns true if timer is stopped.
+     * */
+    private synchronized boolean dropInactiveAndStopIfUnused() {
+        this.registrations.removeIf(registration -> ! registration.isActive());
+
+        if ( ! this.registrations.isEmpty() ) {
+            return false;
+        }
+
+        if ( nonNull(this.async) ) {
+            this.async.shutdownNow();
+            this.async = null;
+            this.nextCheck = null;
+        }
+
+        return true;
+    }
+
+    /*
+     * Replaces previously scheduled check, if any. Date that has already changed is checked immediately.
+     * */
+    private synchronized void scheduleNextCheck() {
+        if ( isNull(this.async) ) {
+            return;
+        }
+
+        if ( nonNull(this.nextCheck) ) {
+            this.nextCheck.cancel(false);
+        }
+
+        ZonedDateTime now = ZonedDateTime.now(this.clock);
+        long delay;
+        if ( now.toLocalDate().equals(this.date) ) {
+            ZonedDateTime nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(this.clock.getZone());
+            delay = between(now, nextMidnight).toMillis() + AFTER_MIDNIGHT_MILLIS;
+        }
+        else {
+            delay = 0;
+        }
+
+        this.nextCheck = this.async.schedule(this::checkDateAndReschedule, delay, MILLISECONDS);
+    }
+
+    private void checkDateAndReschedule() {
+        try {
+            this.checkDate();
+        }
+        finally {
+            this.stopIfUnused();
+            this.scheduleNextCheck();
+        }
     }
 
-    public void stop() {
-        this.schedule.cancel(true);
-        shutdownAndWait(this.async);
+    /*
+     * Runs actions if clock date differs from the date of previous check.
+     * Can be called directly to check a rollover of a controlled Clock without waiting, see MidnightTimerTest.
+     * */
+    void checkDate() {
+        LocalDate today = LocalDate.now(this.clock);
+        synchronized ( this ) {
+            if ( today.equals(this.date) ) {
+                return;
+            }
+            this.date = today;
+        }
+
+        this.midnight(today);
     }
 
+    private void midnight(LocalDate date) {
+        List<Registration<?>> activeRegistrations = new ArrayList<>();
+        for ( Registration<?> registration : this.registrations ) {
+            if ( registration.isActive() ) {
+                activeRegistrations.add(registration);
+            }
+        }
+
+        if ( activeRegistrations.isEmpty() ) {
+            return;
+        }
+
+        this.actionsExecutor.execute(() -> {
+            CalendarEvents.Midnight event;
+            if ( CalendarEvents.isMidnightEnabled() ) {
+                event = new CalendarEvents.Midnight();
+                event.begin();
+            }
+            else {
+                event = null;
+            }
+
+            activeRegistrations.forEach(Registration::run);
+
+            if ( nonNull(event) && event.shouldCommit() ) {
+                event.date = date.toString();
+                event.actions = activeRegistrations.size();
+                event.commit();
+            }
+        });
+    }
 }
@@ -0,0 +1,50 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+
+/*
+ * Date math of calendar views, free of JavaFX nodes.
+ * */
+class MonthGrid {
+
+    static final int WEEKS = 6;
+    static final int DAYS_IN_WEEK = 7;
+
+    private MonthGrid() {
+    }
+
+    /*
+     * Fills grid of 6 weeks shown by month view. The first week starts with given first day of week and
+     * contains the first day of month.
+     * */
+    static void datesOf(YearMonth month, DayOfWeek firstDayOfWeek, LocalDate[][] grid) {
+        LocalDate firstDay = month.atDay(1);
+        int daysBeforeFirstDay = (firstDay.getDayOfWeek().getValue() - firstDayOfWeek.getValue() + DAYS_IN_WEEK) % DAYS_IN_WEEK;
+
+        LocalDate date = firstDay.minusDays(daysBeforeFirstDay);
+        for ( int week = 0; week < WEEKS; week++ ) {
+            for ( int day = 0; day < DAYS_IN_WEEK; day++ ) {
+                grid[week][day] = date;
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    /*
+     * Fills all dates of month in given year shown by year view, returns count of days in month.
+     * */
+    static int datesOf(int year, Month month, LocalDate[] dates) {
+        LocalDate date = LocalDate.of(year, month, 1);
+        int daysInMonth = date.lengthOfMonth();
+
+        for ( int day = 0; day < daysInMonth; day++ ) {
+            dates[day] = date;
+            date = date.plusDays(1);
+        }
+
+        return daysInMonth;
+    }
+}
@@ -1,24 +1,25 @@
 package diarsid.desktop.ui.components.calendar.impl;
 
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
 import java.time.format.TextStyle;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
-import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.css.PseudoClass;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
@@ -29,11 +30,15 @@ import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import diarsid.desktop.ui.components.calendar.api.Calendar;
 import diarsid.desktop.ui.components.calendar.api.Dates;
 import diarsid.desktop.ui.components.calendar.api.Day;
-import diarsid.support.javafx.css.pseudoclasses.PseudoClassAppliedTo;
-import diarsid.support.javafx.css.pseudoclasses.PseudoClassesBoundTo;
+import diarsid.desktop.ui.components.calendar.api.Metrics;
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+import diarsid.desktop.ui.components.calendar.api.ViewSettings;
 import diarsid.support.javafx.mouse.ClickTypeDetector;
 import diarsid.support.objects.references.Possible;
 
@@ -46,6 +51,9 @@ import static java.time.DayOfWeek.TUESDAY;
 import static java.time.DayOfWeek.WEDNESDAY;
 import static java.util.Objects.nonNull;
 
+import static diarsid.desktop.ui.components.calendar.api.Metrics.View.MONTH;
+import static diarsid.desktop.ui.components.calendar.api.ViewSettings.TooltipText.LAZY;
+
 import static javafx.geometry.Pos.CENTER;
 import static javafx.scene.layout.Priority.ALWAYS;
 
@@ -53,6 +61,8 @@ import static diarsid.support.objects.references.References.simplePossibleButEmp
 
 public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesListener {
 
+    private static final Logger log = LoggerFactory.getLogger(MonthViewImpl.class);
+
     public static final Map<DayOfWeek, String> SHORT_NAMES_BY_DAYS;
     public static final PseudoClass PREVIOUS_MONTH = PseudoClass.getPseudoClass("prev-month");
     public static final PseudoClass CURRENT_MONTH = PseudoClass.getPseudoClass("current-month");
@@ -77,30 +87,34 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
 
         private final ClickTypeDetector clickTypeDetector;
         private final Day.MouseCallback clickCallback;
+        private final AppliedPseudoClasses appliedPseudoClasses;
         private boolean isToday;
 
         private DayInMonth(
                 YearMonth yearMonth,
                 int day,
                 Function<LocalDate, String> defaultTooltipText,
-                Function<LocalDate, Optional<Day.Info>> dayInfoByDate,
-                Day.Info.ToString dayInfoToString,
-                Day.MouseCallback callback
+                Function<LocalDate, Day.Info> dayInfoOrNullByDate,
+                DayInfoTexts dayInfoTexts,
+                Day.MouseCallback callback,
+                boolean lazyTooltipText
                 ) {
             super(
                     LocalDate.of(yearMonth.getYear(), yearMonth.getMonth(), day),
                     DATE_TO_LABEL_STRING,
-                    dayInfoByDate,
+                    dayInfoOrNullByDate,
                     defaultTooltipText,
-                    dayInfoToString);
+                    dayInfoTexts,
+                    lazyTooltipText);
             this.clickCallback = callback;
+            this.appliedPseudoClasses = new AppliedPseudoClasses();
 
             this.clickTypeDetector = ClickTypeDetector
                     .Builder
                     .createFor(this)
                     .withDoOnAll((clickType, event) -> {
                         LocalDate date = this.property().get();
-                        Optional<Day.Info> dayInfo = dayInfoByDate.apply(date);
+                        Optional<Day.Info> dayInfo = Optional.ofNullable(dayInfoOrNullByDate.apply(date));
                         this.clickCallback.onClick(clickType, date, dayInfo);
                     })
                     .build();
@@ -110,6 +124,10 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
             return super.property().get();
         }
 
+        public void dateTo(LocalDate date) {
+            super.property().set(date);
+        }
+
         public void dateTo(YearMonth yearMonth, int day) {
             super.property().set(LocalDate.of(yearMonth.getYear(), yearMonth.getMonth(), day));
         }
@@ -143,23 +161,45 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
         public boolean isToday() {
             return this.isToday;
         }
+
+        private void applyPseudoClass(PseudoClass pseudoClass, boolean active) {
+            this.appliedPseudoClasses.apply(this, pseudoClass, active);
+        }
+
+        private void revertPseudoClass(PseudoClass pseudoClass) {
+            this.appliedPseudoClasses.revert(this, pseudoClass);
+        }
+
+        private void revertAppliedPseudoClasses() {
+            this.appliedPseudoClasses.revertAll(this);
+        }
     }
 
     public final VBox view;
     private final GridPane grid;
     private final Map<DayOfWeek, Integer> positionByDays;
+    private final DayOfWeek firstDayOfWeek;
+    private final LocalDate[][] shownDates;
     private final DayInMonth[][] daysStaticGrid;
     private final ByDatesHolder<DayInMonth> daysByDates;
     private final Possible<DayInMonth> currentToday;
     private final Label monthYearLabel;
-    private final List<PseudoClassAppliedTo<DayInMonth>> appliedPseudoClasses;
-    private final PseudoClassesBoundTo<LocalDate> pseudoClassesByDates;
-    private final MidnightTimer midnightTimer;
+    private final PseudoClassesByDates pseudoClassesByDates;
+    private final PseudoClassesChanges pseudoClassesChanges;
+    private final MidnightTimer.Registration<MonthViewImpl> midnight;
+    private final CoalescedAction navigation;
+    private final Clock clock;
+    private final Metrics metrics;
 
     private final Calendar.State.Control calendarStateControl;
+    private final DayInfoState dayInfoState;
+    private final DayInfoTexts dayInfoTexts;
     private YearMonth currMonth;
     private YearMonth prevMonth;
     private YearMonth nextMonth;
+    private CompletableFuture<Void> loading;
+    private final ChangeListener<LocalDate> navigationListener;
+    private boolean disposed;
 
     public MonthViewImpl(
             Calendar.State.Control calendarStateControl,
@@ -167,9 +207,13 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
             Day.Info.ToString dayInfoToString,
             Day.MouseCallback mouseCallback,
             DayOfWeek firstDayOfWeek,
-            PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
-            Function<LocalDate, String> defaultTooltipText) {
+            PseudoClassesByDates pseudoClassesByDates,
+            Function<LocalDate, String> defaultTooltipText,
+            ViewSettings settings) {
         this.calendarStateControl = calendarStateControl;
+        this.clock = settings.clock();
+        this.metrics = settings.metrics();
+        this.dayInfoState = dayInfoState;
         this.currMonth = calendarStateControl.yearMonth();
         this.prevMonth = this.currMonth.minusMonths(1);
         this.nextMonth = this.currMonth.plusMonths(1);
@@ -223,10 +267,13 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
         this.daysByDates = new ByDatesHolder<>();
         this.currentToday = simplePossibleButEmpty();
         this.pseudoClassesByDates = pseudoClassesByDates;
-        this.appliedPseudoClasses = new ArrayList<>();
+        this.pseudoClassesChanges = new PseudoClassesChanges(this::pseudoClassesChanged);
+        pseudoClassesByDates.add(this.pseudoClassesChanges);
 
         Map<Integer, DayOfWeek> daysByPosition = new HashMap<>();
         this.positionByDays = new HashMap<>();
+        this.firstDayOfWeek = firstDayOfWeek;
+        this.shownDates = new LocalDate[MonthGrid.WEEKS][MonthGrid.DAYS_IN_WEEK];
 
         ReadOnlyDoubleProperty viewWidth = this.view.minWidthProperty();
         this.grid.minWidthProperty().bind(viewWidth);
@@ -255,10 +302,13 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
         int currMonthDaysIndex = 1;
         int nextMonthDaysIndex = 1;
         int maxDays = firstDay.lengthOfMonth();
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(this.clock);
+        boolean lazyTooltipText = settings.tooltipText() == LAZY;
+        DayInfoTexts dayInfoTexts = dayInfoState.textsOf(dayInfoToString, settings.tooltipTextsPrerendering());
+        this.dayInfoTexts = dayInfoTexts;
 
         BlinkingDetector blinkingDetector = new BlinkingDetector(() -> {
-            System.out.println("blinking detected");
+            log.debug("blinking of day cell height detected");
         });
 
         final int firstWeekRow = 1;
@@ -295,9 +345,10 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
                             this.prevMonth,
                             prevMonthDaysIndex,
                             defaultTooltipText,
-                            dayInfoState::findDayInfoOf,
-                            dayInfoToString,
-                            mouseCallback);
+                            dayInfoState::findDayInfoOrNull,
+                            dayInfoTexts,
+                            mouseCallback,
+                            lazyTooltipText);
                     day.prevMonthStyle();
                     day.setIsToday(today);
 
@@ -310,9 +361,10 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
                                 this.currMonth,
                                 currMonthDaysIndex,
                                 defaultTooltipText,
-                                dayInfoState::findDayInfoOf,
-                                dayInfoToString,
-                                mouseCallback);
+                                dayInfoState::findDayInfoOrNull,
+                                dayInfoTexts,
+                                mouseCallback,
+                                lazyTooltipText);
                         day.currentMonthStyle();
                         day.setIsToday(today);
 
@@ -323,9 +375,10 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
                                 this.nextMonth,
                                 nextMonthDaysIndex,
                                 defaultTooltipText,
-                                dayInfoState::findDayInfoOf,
-                                dayInfoToString,
-                                mouseCallback);
+                                dayInfoState::findDayInfoOrNull,
+                                dayInfoTexts,
+                                mouseCallback,
+                                lazyTooltipText);
                         day.nextMonthStyle();
                         day.setIsToday(today);
 
@@ -341,12 +394,6 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
                     day.heightProperty().addListener((p, o, n) -> {
                         blinkingDetector.onChange((double) n);
                     });
-
-                    gridCellWidth.addListener((p, o, n) -> {
-                        System.out.println("grid cell width: " + n);
-                    });
-                    gridCellHeight.addListener((p, o, n) -> {
-                    });
                 }
 
                 if ( day.isToday ) {
@@ -412,31 +459,29 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
 
         view.getChildren().addAll(dateInfo, grid);
 
-        String timerThreadName = this.getClass().getCanonicalName() + "." + MidnightTimer.class.getSimpleName();
-        this.midnightTimer = new MidnightTimer(
-                timerThreadName,
-                this::fillInJavaFXThread);
+        this.midnight = MidnightTimer.registerShared(this.clock, this, MonthViewImpl::fill);
 
-        dayInfoState.load(this.prevMonth, this.currMonth, this.nextMonth);
+        this.loading = dayInfoState.load(this.prevMonth, this.currMonth, this.nextMonth);
 
-        this.calendarStateControl.property().addListener((p, oldV, newV) -> {
-            this.currMonth = YearMonth.of(newV.getYear(), newV.getMonth());
-            this.prevMonth = this.currMonth.minusMonths(1);
-            this.nextMonth = this.currMonth.plusMonths(1);
+        this.navigation = new CoalescedAction(settings.navigationCoalescing(), this::navigated);
+        this.navigationListener = (p, oldV, newV) -> {
+            this.navigation.request();
+        };
+        this.calendarStateControl.property().addListener(this.navigationListener);
+    }
 
-            dayInfoState.load(this.prevMonth, this.currMonth, this.nextMonth);
+    private void navigated() {
+        LocalDate date = this.calendarStateControl.property().get();
+        YearMonth navigatedFrom = this.currMonth;
+        this.currMonth = YearMonth.of(date.getYear(), date.getMonth());
+        this.prevMonth = this.currMonth.minusMonths(1);
+        this.nextMonth = this.currMonth.plusMonths(1);
 
-            this.fill();
-        });
-    }
+        CompletableFuture<Void> previousLoading = this.loading;
+        this.loading = this.dayInfoState.loadAfterNavigation(navigatedFrom, this.prevMonth, this.currMonth, this.nextMonth);
+        previousLoading.cancel(false);
 
-    private void fillInJavaFXThread() {
-        if ( Platform.isFxApplicationThread() ) {
-            this.fill();
-        }
-        else {
-            Platform.runLater(this::fill);
-        }
+        this.fill();
     }
 
     @Override
@@ -461,85 +506,122 @@ public class MonthViewImpl implements Calendar.MonthView, DayInfoState.ChangesLi
                 .forEach(DayInMonth::refresh);
     }
 
+    @Override
+    public void onChanges(DayInfoChanges changes) {
+        this.daysByDates.forEachAffectedBy(changes, DayInMonth::refresh);
+    }
+
     @Override
     public Region node() {
         return this.view;
     }
 
+    @Override
+    public void dispose() {
+        if ( this.disposed ) {
+            return;
+        }
+        this.disposed = true;
+
+        this.calendarStateControl.property().removeListener(this.navigationListener);
+        this.navigation.cancel();
+        this.loading.cancel(false);
+        this.midnight.cancel();
+        this.dayInfoState.remove(this);
+        this.pseudoClassesByDates.remove(this.pseudoClassesChanges);
+        this.dayInfoState.release(this.dayInfoTexts);
+    }
+
     private void fill() {
+        CalendarEvents.Fill event;
+        if ( CalendarEvents.isFillEnabled() ) {
+            event = new CalendarEvents.Fill();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+        long start = System.nanoTime();
         daysByDates.clear();
         this.revertGivenPseudoClasses();
 
-        LocalDate firstDay = Dates.firstDayOf(currMonth);
-        DayOfWeek firstDayName = firstDay.getDayOfWeek();
-
-        int firstDayIndexInFirstWeek = positionByDays.get(firstDayName);
-
-        int prevMonthDaysRemnant = firstDayIndexInFirstWeek - 1;
-        int prevMonthDaysIndex = Dates.firstDayOf(prevMonth).lengthOfMonth() - prevMonthDaysRemnant + 1;
-        int daysIndex = 1;
-        int nextMonthDaysIndex = 1;
-        int maxDays = firstDay.lengthOfMonth();
-        LocalDate today = LocalDate.now();
+        MonthGrid.datesOf(this.currMonth, this.firstDayOfWeek, this.shownDates);
 
+        LocalDate today = LocalDate.now(this.clock);
+        LocalDate date;
         DayInMonth day;
-        for (int w = 1; w <= 6; w++) {
-            for (int d = 1; d <= 7; d++) {
-                day = daysStaticGrid[w-1][d-1];
+        for ( int w = 0; w < MonthGrid.WEEKS; w++ ) {
+            for ( int d = 0; d < MonthGrid.DAYS_IN_WEEK; d++ ) {
+                day = this.daysStaticGrid[w][d];
+                date = this.shownDates[w][d];
 
-                if ( w == 1 && prevMonthDaysRemnant > 0 ) {
-                    day.dateTo(prevMonth, prevMonthDaysIndex);
+                day.dateTo(date);
+                if ( date.getMonth() == this.prevMonth.getMonth() ) {
                     day.prevMonthStyle();
-                    day.setIsToday(today);
-
-                    prevMonthDaysRemnant--;
-                    prevMonthDaysIndex++;
+                }
+                else if ( date.getMonth() == this.nextMonth.getMonth() ) {
+                    day.nextMonthStyle();
                 }
                 else {
-                    if ( daysIndex <= maxDays ) {
-                        day.dateTo(currMonth, daysIndex);
-                        day.currentMonthStyle();
-                        day.setIsToday(today);
-
-                        daysIndex++;
-                    }
-                    else {
-                        day.dateTo(nextMonth, nextMonthDaysIndex);
-                        day.nextMonthStyle();
-                        day.setIsToday(today);
-
-                        nextMonthDaysIndex++;
-                    }
+                    day.currentMonthStyle();
                 }
+                day.setIsToday(today);
 
                 if ( day.isToday ) {
                     this.currentToday.resetTo(day);
                 }
 
-                daysByDates.put(day.date(), day);
+                this.daysByDates.put(date, day);
             }
         }
 
         this.applyGivenPseudoClasses();
 
         this.monthYearLabel.setText(currMonth.getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault()) + " " + currMonth.getYear());
+
+        this.metrics.filled(MONTH, System.nanoTime() - start);
+
+        if ( nonNull(event) && event.shouldCommit() ) {
+            event.view = MONTH.name();
+            event.period = this.currMonth.toString();
+            event.cells = MonthGrid.WEEKS * MonthGrid.DAYS_IN_WEEK;
+            event.commit();
+        }
     }
 
     private void revertGivenPseudoClasses() {
-        appliedPseudoClasses.forEach(PseudoClassAppliedTo::revertNodePseudoClass);
-        appliedPseudoClasses.clear();
+        for ( DayInMonth[] week : this.daysStaticGrid ) {
+            for ( DayInMonth day : week ) {
+                day.revertAppliedPseudoClasses();
+            }
+        }
     }
 
     private void applyGivenPseudoClasses() {
-        pseudoClassesByDates.forEach((date, pseudoClasses) -> {
-            DayInMonth dayByDate = daysByDates.findOrNull(date);
+        LocalDate firstShownDate = this.daysStaticGrid[0][0].date();
+        LocalDate lastShownDate = this.daysStaticGrid[5][6].date();
+
+        this.pseudoClassesByDates.forEachBetween(firstShownDate, lastShownDate, (date, pseudoClasses) -> {
+            DayInMonth dayByDate = this.daysByDates.findOrNull(date);
             if ( dayByDate != null ) {
-                pseudoClasses.forEach((pseudoClass, active) -> {
-                    dayByDate.pseudoClassStateChanged(pseudoClass, active);
-                    appliedPseudoClasses.add(new PseudoClassAppliedTo<>(pseudoClass, active, dayByDate));
-                });
+                pseudoClasses.forEach(dayByDate::applyPseudoClass);
             }
         });
     }
 
+    private void pseudoClassesChanged(List<PseudoClassesChanges.Change> changes) {
+        DayInMonth day;
+        for ( PseudoClassesChanges.Change change : changes ) {
+            day = this.daysByDates.findOrNull(change.date);
+            if ( nonNull(day) ) {
+                if ( change.removed ) {
+                    day.revertPseudoClass(change.pseudoClass);
+                }
+                else {
+                    day.applyPseudoClass(change.pseudoClass, change.active);
+                }
+            }
+        }
+    }
+
 }
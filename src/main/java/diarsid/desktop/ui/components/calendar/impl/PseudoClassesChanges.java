@@ -0,0 +1,88 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+
+/*
+ * Collects changes of PseudoClassesByDates made on any thread and passes them to a view on JavaFX thread
+ * once per pulse. Repeated changes of the same pseudo class of the same date are collapsed into the last one.
+ * */
+public class PseudoClassesChanges implements PseudoClassesByDates.ChangesListener {
+
+    public static class Change {
+
+        public final LocalDate date;
+        public final PseudoClass pseudoClass;
+        public final boolean removed;
+        public final boolean active;
+
+        private Change(LocalDate date, PseudoClass pseudoClass, boolean removed, boolean active) {
+            this.date = date;
+            this.pseudoClass = pseudoClass;
+            this.removed = removed;
+            this.active = active;
+        }
+    }
+
+    private final Queue<Change> changes;
+    private final AtomicBoolean scheduled;
+    private final Consumer<List<Change>> applyChanges;
+
+    public PseudoClassesChanges(Consumer<List<Change>> applyChanges) {
+        this.changes = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.applyChanges = applyChanges;
+    }
+
+    @Override
+    public void onSet(LocalDate date, PseudoClass pseudoClass, boolean active) {
+        this.changes.offer(new Change(date, pseudoClass, false, active));
+        this.schedule();
+    }
+
+    @Override
+    public void onRemove(LocalDate date, PseudoClass pseudoClass) {
+        this.changes.offer(new Change(date, pseudoClass, true, false));
+        this.schedule();
+    }
+
+    private void schedule() {
+        if ( this.scheduled.compareAndSet(false, true) ) {
+            Platform.runLater(this::apply);
+        }
+    }
+
+    private void apply() {
+        this.scheduled.set(false);
+
+        Map<LocalDate, Map<PseudoClass, Change>> lastChanges = new LinkedHashMap<>();
+        Change change;
+        while ( (change = this.changes.poll()) != null ) {
+            lastChanges
+                    .computeIfAbsent(change.date, date -> new HashMap<>())
+                    .put(change.pseudoClass, change);
+        }
+
+        if ( lastChanges.isEmpty() ) {
+            return;
+        }
+
+        List<Change> changesToApply = new ArrayList<>();
+        lastChanges.values().forEach(changesOfDate -> changesToApply.addAll(changesOfDate.values()));
+
+        this.applyChanges.accept(changesToApply);
+    }
+}
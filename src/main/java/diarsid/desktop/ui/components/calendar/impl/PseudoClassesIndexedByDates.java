@@ -0,0 +1,125 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javafx.css.PseudoClass;
+
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public class PseudoClassesIndexedByDates implements PseudoClassesByDates.Control {
+
+    private final ConcurrentNavigableMap<LocalDate, Map<PseudoClass, Boolean>> pseudoClassesByDates;
+    private final List<ChangesListener> changesListeners;
+
+    public PseudoClassesIndexedByDates() {
+        this.pseudoClassesByDates = new ConcurrentSkipListMap<>();
+        this.changesListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /*
+     * Indexes pseudo classes visited by given forEach once, so views do not have to scan all of them.
+     * */
+    public static PseudoClassesIndexedByDates copyOf(
+            Consumer<BiConsumer<LocalDate, Map<PseudoClass, Boolean>>> forEachPseudoClassesByDates) {
+        PseudoClassesIndexedByDates copy = new PseudoClassesIndexedByDates();
+        forEachPseudoClassesByDates.accept((date, pseudoClasses) -> {
+            Map<PseudoClass, Boolean> copiedPseudoClasses = new ConcurrentHashMap<>(pseudoClasses);
+            if ( ! copiedPseudoClasses.isEmpty() ) {
+                copy.pseudoClassesByDates.put(date, copiedPseudoClasses);
+            }
+        });
+        return copy;
+    }
+
+    @Override
+    public void forEachBetween(
+            LocalDate from, LocalDate toInclusive, BiConsumer<LocalDate, Map<PseudoClass, Boolean>> action) {
+        this.pseudoClassesByDates
+                .subMap(from, true, toInclusive, true)
+                .forEach((date, pseudoClasses) -> {
+                    if ( ! pseudoClasses.isEmpty() ) {
+                        action.accept(date, unmodifiableMap(pseudoClasses));
+                    }
+                });
+    }
+
+    @Override
+    public void add(ChangesListener changesListener) {
+        this.changesListeners.add(changesListener);
+    }
+
+    @Override
+    public void remove(ChangesListener changesListener) {
+        this.changesListeners.remove(changesListener);
+    }
+
+    /*
+     * Changes are made and passed to listeners under the same lock, so listeners receive changes
+     * in the same order as they are made, even if they are made concurrently.
+     * */
+    @Override
+    public synchronized void set(LocalDate date, PseudoClass pseudoClass, boolean active) {
+        Map<PseudoClass, Boolean> pseudoClasses = this.pseudoClassesByDates.get(date);
+
+        if ( isNull(pseudoClasses) ) {
+            pseudoClasses = new ConcurrentHashMap<>();
+            this.pseudoClassesByDates.put(date, pseudoClasses);
+        }
+
+        Boolean previousActive = pseudoClasses.put(pseudoClass, active);
+
+        if ( isNull(previousActive) || previousActive != active ) {
+            for ( ChangesListener listener : this.changesListeners ) {
+                listener.onSet(date, pseudoClass, active);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(LocalDate date, PseudoClass pseudoClass) {
+        Map<PseudoClass, Boolean> pseudoClasses = this.pseudoClassesByDates.get(date);
+
+        if ( isNull(pseudoClasses) ) {
+            return;
+        }
+
+        Boolean removedActive = pseudoClasses.remove(pseudoClass);
+
+        if ( pseudoClasses.isEmpty() ) {
+            this.pseudoClassesByDates.remove(date);
+        }
+
+        if ( nonNull(removedActive) ) {
+            for ( ChangesListener listener : this.changesListeners ) {
+                listener.onRemove(date, pseudoClass);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void removeAll(LocalDate date) {
+        Map<PseudoClass, Boolean> removed = this.pseudoClassesByDates.remove(date);
+
+        if ( isNull(removed) ) {
+            return;
+        }
+
+        for ( PseudoClass pseudoClass : removed.keySet() ) {
+            for ( ChangesListener listener : this.changesListeners ) {
+                listener.onRemove(date, pseudoClass);
+            }
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import javafx.beans.value.ChangeListener;
+import javafx.css.PseudoClass;
+import javafx.geometry.Insets;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.Border;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+import diarsid.desktop.ui.components.calendar.api.Calendar;
+import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.desktop.ui.components.calendar.api.Metrics;
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+import diarsid.desktop.ui.components.calendar.api.ViewSettings;
+import diarsid.support.javafx.mouse.ClickTypeDetector;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import static diarsid.desktop.ui.components.calendar.api.Metrics.View.YEAR_CANVAS;
+import static diarsid.desktop.ui.components.calendar.impl.YearViewImpl.IN_FUTURE;
+import static diarsid.desktop.ui.components.calendar.impl.YearViewImpl.IN_PAST;
+import static diarsid.desktop.ui.components.calendar.impl.YearViewImpl.MONTH_FOCUSED;
+import static diarsid.desktop.ui.components.calendar.impl.YearViewImpl.TODAY;
+
+/*
+ * Calendar.YearView that draws all days on one Canvas instead of keeping a node per day.
+ * Days are laid out in the same flow as in YearViewImpl. Colors of days are resolved once per combination
+ * of pseudo classes from CSS applied to hidden probe nodes, which have the same style classes as
+ * nodes of YearViewImpl, so both views are styled by the same stylesheet.
+ * Style of every day is resolved when year or today changes and then only for dates with changed pseudo
+ * classes, so redraws do not look up pseudo classes. Hover redraws only days of months that lose and
+ * gain focus.
+ * */
+public class YearCanvasViewImpl implements Calendar.YearView, DayInfoState.ChangesListener {
+
+    private static final double DEFAULT_DAY_SIZE = 8;
+    private static final double DAY_ARC = 4;
+    private static final int MAX_DAYS_IN_YEAR = 366;
+
+    private static class DayStyle {
+
+        private final Paint fill;
+        private final Paint stroke;
+
+        private DayStyle(Paint fill, Paint stroke) {
+            this.fill = fill;
+            this.stroke = stroke;
+        }
+    }
+
+    private final Calendar.State.Control calendarStateControl;
+    private final DayInfoState dayInfoState;
+    private final DayInfoTexts dayInfoTexts;
+    private final Day.MouseCallback mouseCallback;
+    private final PseudoClassesByDates pseudoClassesByDates;
+    private final PseudoClassesChanges pseudoClassesChanges;
+    private final Function<LocalDate, String> defaultTooltipText;
+    private final Pane view;
+    private final Canvas canvas;
+    private final Pane monthProbe;
+    private final HBox cellProbe;
+    private final Label dayProbe;
+    private final Map<Set<PseudoClass>, DayStyle> stylesByPseudoClasses;
+    /* styles of days of styledYear by day of year, as of styledToday */
+    private final DayStyle[] stylesOfDays;
+    private final Tooltip tooltip;
+    private final ClickTypeDetector clickTypeDetector;
+    private final MidnightTimer.Registration<YearCanvasViewImpl> midnight;
+    private final CoalescedAction navigation;
+    private final Clock clock;
+    private final Metrics metrics;
+    private CompletableFuture<Void> loading;
+    private final ChangeListener<LocalDate> navigationListener;
+    private boolean disposed;
+    private int year;
+    private int styledYear;
+    private LocalDate styledToday;
+    private Paint focusedCellFill;
+    private double daySize;
+    private Insets cellPadding;
+    private int columns;
+    private LocalDate hoveredDate;
+
+    public YearCanvasViewImpl(
+            Calendar.State.Control calendarState,
+            DayInfoState dayInfoState,
+            Day.Info.ToString dayInfoToString,
+            Day.MouseCallback mouseCallback,
+            PseudoClassesByDates pseudoClassesByDates,
+            Function<LocalDate, String> defaultTooltipText,
+            ViewSettings settings) {
+        this.calendarStateControl = calendarState;
+        this.clock = settings.clock();
+        this.metrics = settings.metrics();
+        this.dayInfoState = dayInfoState;
+        this.dayInfoTexts = dayInfoState.textsOf(dayInfoToString, settings.tooltipTextsPrerendering());
+        this.mouseCallback = mouseCallback;
+        this.pseudoClassesByDates = pseudoClassesByDates;
+        this.pseudoClassesChanges = new PseudoClassesChanges(this::pseudoClassesChanged);
+        pseudoClassesByDates.add(this.pseudoClassesChanges);
+        this.defaultTooltipText = defaultTooltipText;
+        this.stylesByPseudoClasses = new HashMap<>();
+        this.stylesOfDays = new DayStyle[MAX_DAYS_IN_YEAR];
+        dayInfoState.add(this);
+
+        this.year = calendarState.year();
+        this.loading = this.dayInfoState.load(this.year);
+
+        this.canvas = new Canvas();
+
+        this.dayProbe = new Label();
+        this.dayProbe.getStyleClass().add("day");
+        this.cellProbe = new HBox(this.dayProbe);
+        this.cellProbe.getStyleClass().add("day-in-month");
+        this.monthProbe = new Pane(this.cellProbe);
+        this.monthProbe.getStyleClass().add("month-in-year");
+        this.monthProbe.setManaged(false);
+        this.monthProbe.setVisible(false);
+
+        this.view = new Pane(this.canvas, this.monthProbe);
+        this.view.getStyleClass().add("year-view");
+        this.view.widthProperty().addListener((p, oldWidth, newWidth) -> {
+            this.draw();
+        });
+
+        this.tooltip = new Tooltip();
+        this.tooltip.setOnShowing(event -> {
+            if ( nonNull(this.hoveredDate) ) {
+                this.fillTooltipText(this.hoveredDate);
+            }
+        });
+
+        this.canvas.setOnMouseMoved(event -> {
+            this.hovered(this.dateAt(event.getX(), event.getY()));
+        });
+
+        this.canvas.setOnMouseExited(event -> {
+            this.hovered(null);
+        });
+
+        this.clickTypeDetector = ClickTypeDetector.Builder.createFor(this.canvas)
+                .withDoOnAll((clickType, event) -> {
+                    LocalDate date = this.dateAt(event.getX(), event.getY());
+                    if ( nonNull(date) ) {
+                        this.mouseCallback.onClick(
+                                clickType,
+                                date,
+                                this.dayInfoState.findDayInfoOf(date));
+                    }
+                })
+                .build();
+
+        this.navigation = new CoalescedAction(settings.navigationCoalescing(), this::navigated);
+        this.navigationListener = (p, oldDate, newDate) -> {
+            if ( oldDate.getYear() != newDate.getYear() ) {
+                this.navigation.request();
+            }
+        };
+        this.calendarStateControl.property().addListener(this.navigationListener);
+
+        this.midnight = MidnightTimer.registerShared(this.clock, this, YearCanvasViewImpl::draw);
+    }
+
+    @Override
+    public void onChange(LocalDate date) {
+        if ( date.equals(this.hoveredDate) ) {
+            this.tooltipTextChanged();
+        }
+    }
+
+    @Override
+    public void onChange(YearMonth month) {
+        if ( nonNull(this.hoveredDate) && month.equals(YearMonth.from(this.hoveredDate)) ) {
+            this.tooltipTextChanged();
+        }
+    }
+
+    @Override
+    public void onChange(Year year) {
+        if ( nonNull(this.hoveredDate) && year.getValue() == this.hoveredDate.getYear() ) {
+            this.tooltipTextChanged();
+        }
+    }
+
+    @Override
+    public void onChanges(DayInfoChanges changes) {
+        if ( nonNull(this.hoveredDate) && changes.affects(this.hoveredDate) ) {
+            this.tooltipTextChanged();
+        }
+    }
+
+    @Override
+    public Region node() {
+        return this.view;
+    }
+
+    @Override
+    public void dispose() {
+        if ( this.disposed ) {
+            return;
+        }
+        this.disposed = true;
+
+        this.calendarStateControl.property().removeListener(this.navigationListener);
+        this.navigation.cancel();
+        this.loading.cancel(false);
+        this.midnight.cancel();
+        this.dayInfoState.remove(this);
+        this.pseudoClassesByDates.remove(this.pseudoClassesChanges);
+        this.dayInfoState.release(this.dayInfoTexts);
+    }
+
+    private void navigated() {
+        int year = this.calendarStateControl.year();
+        if ( this.year == year ) {
+            return;
+        }
+
+        int navigatedFrom = this.year;
+        this.year = year;
+        CompletableFuture<Void> previousLoading = this.loading;
+        this.loading = this.dayInfoState.loadAfterNavigation(Year.of(navigatedFrom), Year.of(year));
+        previousLoading.cancel(false);
+        this.hovered(null);
+        this.draw();
+    }
+
+    private void hovered(LocalDate date) {
+        LocalDate previousDate = this.hoveredDate;
+        if ( isNull(date) ? isNull(previousDate) : date.equals(previousDate) ) {
+            return;
+        }
+
+        this.hoveredDate = date;
+
+        if ( isNull(date) ) {
+            Tooltip.uninstall(this.canvas, this.tooltip);
+        }
+        else if ( isNull(previousDate) ) {
+            Tooltip.install(this.canvas, this.tooltip);
+        }
+        else {
+            this.tooltipTextChanged();
+        }
+
+        Month previousMonth = isNull(previousDate) ? null : previousDate.getMonth();
+        Month month = isNull(date) ? null : date.getMonth();
+        if ( previousMonth != month && this.isDrawn() ) {
+            GraphicsContext graphics = this.canvas.getGraphicsContext2D();
+            if ( nonNull(previousMonth) ) {
+                this.redrawDaysOf(graphics, previousMonth);
+            }
+            if ( nonNull(month) ) {
+                this.redrawDaysOf(graphics, month);
+            }
+        }
+    }
+
+    private void tooltipTextChanged() {
+        if ( this.tooltip.isShowing() && nonNull(this.hoveredDate) ) {
+            this.fillTooltipText(this.hoveredDate);
+        }
+    }
+
+    private void fillTooltipText(LocalDate date) {
+        Day.Info dayInfo = this.dayInfoState.findDayInfoOrNull(date);
+
+        String text;
+        if ( nonNull(dayInfo) ) {
+            text = this.dayInfoTexts.textOf(dayInfo);
+        }
+        else {
+            text = this.defaultTooltipText.apply(date);
+        }
+
+        this.tooltip.setText(text);
+    }
+
+    private double cellSize() {
+        return this.daySize + this.cellPadding.getLeft() + this.cellPadding.getRight();
+    }
+
+    private LocalDate dateAt(double x, double y) {
+        if ( this.columns == 0 || x < 0 || y < 0 ) {
+            return null;
+        }
+
+        double cellSize = this.cellSize();
+        int column = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        if ( column >= this.columns ) {
+            return null;
+        }
+
+        int dayOfYear = row * this.columns + column + 1;
+        if ( dayOfYear > Year.of(this.year).length() ) {
+            return null;
+        }
+
+        return LocalDate.ofYearDay(this.year, dayOfYear);
+    }
+
+    private void draw() {
+        if ( isNull(this.view.getScene()) ) {
+            return;
+        }
+
+        CalendarEvents.Fill event;
+        if ( CalendarEvents.isFillEnabled() ) {
+            event = new CalendarEvents.Fill();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+        long start = System.nanoTime();
+
+        if ( isNull(this.focusedCellFill) ) {
+            this.resolveGeometry();
+        }
+
+        Insets insets = this.view.getInsets();
+        double width = this.view.getWidth() - insets.getLeft() - insets.getRight();
+        double cellSize = this.cellSize();
+        int daysInYear = Year.of(this.year).length();
+
+        this.columns = Math.max(1, (int) (width / cellSize));
+        int rows = (daysInYear + this.columns - 1) / this.columns;
+        double height = rows * cellSize;
+
+        this.canvas.setWidth(this.columns * cellSize);
+        this.canvas.setHeight(height);
+        this.view.setPrefHeight(height + insets.getTop() + insets.getBottom());
+
+        LocalDate today = LocalDate.now(this.clock);
+        if ( this.styledYear != this.year || ! today.equals(this.styledToday) ) {
+            this.resolveStylesOfDays(today);
+        }
+
+        GraphicsContext graphics = this.canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, this.canvas.getWidth(), height);
+
+        LocalDate firstDate = LocalDate.of(this.year, 1, 1);
+        LocalDate date = firstDate;
+        for ( int day = 0; day < daysInYear; day++ ) {
+            this.drawDay(graphics, day, date);
+            date = date.plusDays(1);
+        }
+
+        this.metrics.filled(YEAR_CANVAS, System.nanoTime() - start);
+
+        if ( nonNull(event) && event.shouldCommit() ) {
+            event.view = YEAR_CANVAS.name();
+            event.period = String.valueOf(this.year);
+            event.cells = daysInYear;
+            event.commit();
+        }
+    }
+
+    private boolean isDrawn() {
+        return this.columns > 0 && this.styledYear == this.year && nonNull(this.styledToday);
+    }
+
+    private void pseudoClassesChanged(List<PseudoClassesChanges.Change> changes) {
+        if ( ! this.isDrawn() ) {
+            return;
+        }
+
+        Set<LocalDate> changedDates = new HashSet<>();
+        for ( PseudoClassesChanges.Change change : changes ) {
+            if ( change.date.getYear() == this.year ) {
+                changedDates.add(change.date);
+            }
+        }
+
+        if ( changedDates.isEmpty() ) {
+            return;
+        }
+
+        GraphicsContext graphics = this.canvas.getGraphicsContext2D();
+        Set<PseudoClass> pseudoClasses = new HashSet<>();
+        int day;
+        for ( LocalDate date : changedDates ) {
+            pseudoClasses.clear();
+            this.pseudoClassesByDates.forEachBetween(date, date, (sameDate, pseudoClassesOfDate) -> {
+                addActive(pseudoClassesOfDate, pseudoClasses);
+            });
+
+            day = date.getDayOfYear() - 1;
+            this.stylesOfDays[day] = this.styleOf(pseudoClasses, date, this.styledToday);
+            this.redrawDay(graphics, day, date);
+        }
+    }
+
+    private void resolveStylesOfDays(LocalDate today) {
+        int daysInYear = Year.of(this.year).length();
+        LocalDate firstDate = LocalDate.of(this.year, 1, 1);
+        LocalDate lastDate = LocalDate.of(this.year, 12, 31);
+
+        List<Set<PseudoClass>> pseudoClassesOfDays = new ArrayList<>(daysInYear);
+        for ( int day = 0; day < daysInYear; day++ ) {
+            pseudoClassesOfDays.add(null);
+        }
+
+        this.pseudoClassesByDates.forEachBetween(firstDate, lastDate, (date, pseudoClasses) -> {
+            Set<PseudoClass> activePseudoClasses = new HashSet<>();
+            addActive(pseudoClasses, activePseudoClasses);
+            pseudoClassesOfDays.set(date.getDayOfYear() - 1, activePseudoClasses);
+        });
+
+        Set<PseudoClass> noPseudoClasses = new HashSet<>();
+        Set<PseudoClass> pseudoClasses;
+        LocalDate date = firstDate;
+        for ( int day = 0; day < daysInYear; day++ ) {
+            pseudoClasses = pseudoClassesOfDays.get(day);
+            if ( isNull(pseudoClasses) ) {
+                noPseudoClasses.clear();
+                pseudoClasses = noPseudoClasses;
+            }
+            this.stylesOfDays[day] = this.styleOf(pseudoClasses, date, today);
+            date = date.plusDays(1);
+        }
+
+        this.styledYear = this.year;
+        this.styledToday = today;
+    }
+
+    private void redrawDaysOf(GraphicsContext graphics, Month month) {
+        YearMonth yearMonth = YearMonth.of(this.year, month);
+        int firstDay = yearMonth.atDay(1).getDayOfYear() - 1;
+        int daysInMonth = yearMonth.lengthOfMonth();
+        LocalDate date = yearMonth.atDay(1);
+        for ( int day = firstDay; day < firstDay + daysInMonth; day++ ) {
+            this.redrawDay(graphics, day, date);
+            date = date.plusDays(1);
+        }
+    }
+
+    private void redrawDay(GraphicsContext graphics, int day, LocalDate date) {
+        double cellSize = this.cellSize();
+        graphics.clearRect((day % this.columns) * cellSize, (day / this.columns) * cellSize, cellSize, cellSize);
+        this.drawDay(graphics, day, date);
+    }
+
+    private void drawDay(GraphicsContext graphics, int day, LocalDate date) {
+        double cellSize = this.cellSize();
+        double x = (day % this.columns) * cellSize;
+        double y = (day / this.columns) * cellSize;
+
+        if ( nonNull(this.hoveredDate) && date.getMonth() == this.hoveredDate.getMonth() ) {
+            graphics.setFill(this.focusedCellFill);
+            graphics.fillRect(x, y, cellSize, cellSize);
+        }
+
+        DayStyle style = this.stylesOfDays[day];
+
+        x = x + this.cellPadding.getLeft();
+        y = y + this.cellPadding.getTop();
+        graphics.setFill(style.fill);
+        graphics.fillRoundRect(x, y, this.daySize, this.daySize, DAY_ARC, DAY_ARC);
+        graphics.setStroke(style.stroke);
+        graphics.strokeRoundRect(x, y, this.daySize, this.daySize, DAY_ARC, DAY_ARC);
+    }
+
+    private void resolveGeometry() {
+        this.monthProbe.pseudoClassStateChanged(MONTH_FOCUSED, true);
+        this.monthProbe.applyCss();
+        this.focusedCellFill = fillOf(this.cellProbe.getBackground());
+        this.cellPadding = this.cellProbe.getPadding();
+        this.monthProbe.pseudoClassStateChanged(MONTH_FOCUSED, false);
+
+        this.daySize = Math.max(this.dayProbe.getMinWidth(), DEFAULT_DAY_SIZE);
+    }
+
+    /*
+     * Given set of pseudo classes of a date is completed by its time pseudo class.
+     * */
+    private DayStyle styleOf(Set<PseudoClass> pseudoClasses, LocalDate date, LocalDate today) {
+        if ( today.isEqual(date) ) {
+            pseudoClasses.add(TODAY);
+        }
+        else if ( today.isBefore(date) ) {
+            pseudoClasses.add(IN_FUTURE);
+        }
+        else {
+            pseudoClasses.add(IN_PAST);
+        }
+
+        DayStyle style = this.stylesByPseudoClasses.get(pseudoClasses);
+        if ( nonNull(style) ) {
+            return style;
+        }
+
+        List<PseudoClass> appliedPseudoClasses = new ArrayList<>(pseudoClasses);
+        appliedPseudoClasses.forEach(pseudoClass -> this.dayProbe.pseudoClassStateChanged(pseudoClass, true));
+        this.dayProbe.applyCss();
+        style = new DayStyle(fillOf(this.dayProbe.getBackground()), strokeOf(this.dayProbe.getBorder()));
+        appliedPseudoClasses.forEach(pseudoClass -> this.dayProbe.pseudoClassStateChanged(pseudoClass, false));
+
+        this.stylesByPseudoClasses.put(Set.copyOf(pseudoClasses), style);
+
+        return style;
+    }
+
+    private static void addActive(Map<PseudoClass, Boolean> pseudoClasses, Set<PseudoClass> activePseudoClasses) {
+        pseudoClasses.forEach((pseudoClass, active) -> {
+            if ( active ) {
+                activePseudoClasses.add(pseudoClass);
+            }
+        });
+    }
+
+    private static Paint fillOf(Background background) {
+        if ( isNull(background) || background.getFills().isEmpty() ) {
+            return Color.TRANSPARENT;
+        }
+        return background.getFills().get(0).getFill();
+    }
+
+    private static Paint strokeOf(Border border) {
+        if ( isNull(border) || border.getStrokes().isEmpty() ) {
+            return Color.TRANSPARENT;
+        }
+        return border.getStrokes().get(0).getTopStroke();
+    }
+}
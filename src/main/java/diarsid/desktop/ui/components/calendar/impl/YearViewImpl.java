@@ -1,35 +1,46 @@
 package diarsid.desktop.ui.components.calendar.impl;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
 import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
-import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.css.PseudoClass;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
 
 import diarsid.desktop.ui.components.calendar.api.Calendar;
 import diarsid.desktop.ui.components.calendar.api.Day;
-import diarsid.support.javafx.css.pseudoclasses.PseudoClassesBoundTo;
+import diarsid.desktop.ui.components.calendar.api.Metrics;
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+import diarsid.desktop.ui.components.calendar.api.ViewSettings;
 import diarsid.support.javafx.mouse.ClickTypeDetector;
+import diarsid.support.objects.references.Possible;
 
 import static java.util.Objects.nonNull;
 
+import static diarsid.desktop.ui.components.calendar.api.Metrics.View.YEAR;
+import static diarsid.desktop.ui.components.calendar.api.ViewSettings.TooltipText.LAZY;
+import static diarsid.desktop.ui.components.calendar.api.ViewSettings.Tooltips.SHARED;
+import static diarsid.support.objects.references.References.simplePossibleButEmpty;
+
 public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesListener {
 
     public static final PseudoClass IN_FUTURE = PseudoClass.getPseudoClass("in-future");
@@ -43,6 +54,10 @@ public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesList
         private final ObjectProperty<LocalDate> date;
         private final YearViewImpl view;
         private final ClickTypeDetector clickTypeDetector;
+        private final Tooltip tooltip;
+        private final AppliedPseudoClasses appliedPseudoClasses;
+        private boolean tooltipTextOutdated;
+        private PseudoClass timeStyle;
 
         public DayInYear(
                 LocalDate date,
@@ -50,6 +65,7 @@ public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesList
             this.label = new Label();
             this.date = new SimpleObjectProperty<>(date);
             this.view = view;
+            this.appliedPseudoClasses = new AppliedPseudoClasses();
 
             super.getChildren().add(this.label);
             super.getStyleClass().add("day-in-month");
@@ -61,23 +77,38 @@ public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesList
             this.label.minHeightProperty().bind(width);
             this.label.maxHeightProperty().bind(width);
 
-            this.hoverProperty().addListener((p, oldValue, newValue) -> {
-                boolean hover = newValue || super.hoverProperty().get();
-                this.hoverChanged(hover);
-            });
-
-            super.hoverProperty().addListener((p, oldValue, newValue) -> {
-                boolean hover = newValue || super.hoverProperty().get();
-                this.hoverChanged(hover);
-            });
-
-
-            Tooltip tooltip = new Tooltip();
-            this.label.setTooltip(tooltip);
-            this.fillTooltipText(this.date.get());
+            if ( this.view.sharedTooltip.isPresent() ) {
+                this.tooltip = this.view.sharedTooltip.get();
+                Tooltip.install(this.label, this.tooltip);
+
+                this.label.hoverProperty().addListener((p, oldValue, hover) -> {
+                    if ( hover ) {
+                        this.view.sharedTooltipDay = this;
+                        if ( this.tooltip.isShowing() ) {
+                            this.fillTooltipText(this.date.get());
+                        }
+                    }
+                });
+            }
+            else {
+                this.tooltip = new Tooltip();
+                this.label.setTooltip(this.tooltip);
+
+                if ( this.view.lazyTooltipText ) {
+                    this.tooltipTextOutdated = true;
+                    this.tooltip.setOnShowing(event -> {
+                        if ( this.tooltipTextOutdated ) {
+                            this.fillTooltipText(this.date.get());
+                        }
+                    });
+                }
+                else {
+                    this.fillTooltipText(this.date.get());
+                }
+            }
 
             this.date.addListener((prop, oldV, newV) -> {
-                this.fillTooltipText(newV);
+                this.tooltipTextChanged();
             });
 
             this.clickTypeDetector = ClickTypeDetector.Builder.createFor(this)
@@ -92,152 +123,324 @@ public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesList
         }
 
         private void fillTooltipText(LocalDate date) {
-            Optional<Day.Info> dayInfoLoaded = this.view.dayInfoState.findDayInfoOf(date);
+            Day.Info dayInfo = this.view.dayInfoState.findDayInfoOrNull(date);
 
             String text;
-            if ( dayInfoLoaded.isPresent() ) {
-                var dayInfo = dayInfoLoaded.get();
-                if ( dayInfo.customToString().isPresent() ) {
-                    text = dayInfo.customToString().get().apply(dayInfo);
-                }
-                else {
-                    text = this.view.dayInfoToString.apply(dayInfo);
-                }
+            if ( nonNull(dayInfo) ) {
+                text = this.view.dayInfoTexts.textOf(dayInfo);
             }
             else {
                 text = this.view.defaultTooltipText.apply(date);
             }
 
-            this.label.getTooltip().setText(text);
+            this.tooltip.setText(text);
+            this.tooltipTextOutdated = false;
+        }
+
+        private void tooltipTextChanged() {
+            if ( this.view.sharedTooltip.isPresent() ) {
+                if ( this.view.sharedTooltipDay == this && this.tooltip.isShowing() ) {
+                    this.fillTooltipText(this.date.get());
+                }
+            }
+            else if ( this.view.lazyTooltipText && ! this.tooltip.isShowing() ) {
+                this.tooltipTextOutdated = true;
+            }
+            else {
+                this.fillTooltipText(this.date.get());
+            }
         }
 
         void refresh() {
-            this.fillTooltipText(this.date.get());
+            this.tooltipTextChanged();
+        }
+
+        /*
+         * Applies today, past or future style relative to given today, if it differs from current one.
+         * */
+        void timeStyle(LocalDate today) {
+            LocalDate date = this.date.get();
+            PseudoClass timeStyle;
+            if ( today.isEqual(date) ) {
+                timeStyle = TODAY;
+            }
+            else if ( today.isBefore(date) ) {
+                timeStyle = IN_FUTURE;
+            }
+            else {
+                timeStyle = IN_PAST;
+            }
+
+            if ( timeStyle == this.timeStyle ) {
+                return;
+            }
+
+            if ( timeStyle == TODAY ) {
+                this.todayStyle();
+            }
+            else if ( timeStyle == IN_FUTURE ) {
+                this.futureStyle();
+            }
+            else {
+                this.pastStyle();
+            }
         }
 
         public void todayStyle() {
+            this.timeStyle = TODAY;
             this.label.pseudoClassStateChanged(TODAY, true);
             this.label.pseudoClassStateChanged(IN_PAST, false);
             this.label.pseudoClassStateChanged(IN_FUTURE, false);
         }
 
         public void pastStyle() {
+            this.timeStyle = IN_PAST;
             this.label.pseudoClassStateChanged(TODAY, false);
             this.label.pseudoClassStateChanged(IN_PAST, true);
             this.label.pseudoClassStateChanged(IN_FUTURE, false);
         }
 
         public void futureStyle() {
+            this.timeStyle = IN_FUTURE;
             this.label.pseudoClassStateChanged(TODAY, false);
             this.label.pseudoClassStateChanged(IN_PAST, false);
             this.label.pseudoClassStateChanged(IN_FUTURE, true);
         }
 
-        private void hoverChanged(boolean value) {
-            Month month = this.date.get().getMonth();
-            this.view
-                    .daysByMonths
-                    .get(month)
-                    .forEach(day -> day.monthFocused(value));
+        private void applyPseudoClass(PseudoClass pseudoClass, boolean active) {
+            this.appliedPseudoClasses.apply(this.label, pseudoClass, active);
+        }
+
+        private void revertPseudoClass(PseudoClass pseudoClass) {
+            this.appliedPseudoClasses.revert(this.label, pseudoClass);
+        }
+
+        private void revertAppliedPseudoClasses() {
+            this.appliedPseudoClasses.revertAll(this.label);
+        }
+    }
+
+    /*
+     * Container of days of one month. Day nodes are bound to days of month by their index, so they keep their
+     * month when year changes. Containers of all months overlap and are transparent for mouse, days are
+     * positioned by YearFlow, so a container only groups its days: when any of them is hovered, month-focused
+     * pseudo class of the container is flipped once and is matched by '.month-in-year:month-focused .day-in-month'.
+     * */
+    private static class MonthInYear extends Pane {
+
+        private final Month month;
+        private final YearViewImpl view;
+        private final List<DayInYear> days;
+        private final LocalDate[] dates;
+
+        private MonthInYear(Month month, YearViewImpl view) {
+            this.month = month;
+            this.view = view;
+            this.days = new ArrayList<>();
+            this.dates = new LocalDate[month.maxLength()];
+
+            super.getStyleClass().add("month-in-year");
+            super.setPickOnBounds(false);
+
+            this.hoverProperty().addListener((p, oldValue, hover) -> {
+                super.pseudoClassStateChanged(MONTH_FOCUSED, hover);
+            });
+        }
+
+        /*
+         * Returns count of filled days. Day nodes for days that did not exist yet are created, but not
+         * attached to the view.
+         * */
+        private int fill(int year, boolean yearChanged, LocalDate today) {
+            int daysInMonth = MonthGrid.datesOf(year, this.month, this.dates);
+
+            LocalDate date;
+            DayInYear day;
+            for ( int dayOfMonth = 1; dayOfMonth <= daysInMonth; dayOfMonth++ ) {
+                date = this.dates[dayOfMonth - 1];
+
+                if ( dayOfMonth > this.days.size() ) {
+                    day = new DayInYear(date, this.view);
+                    this.days.add(day);
+                }
+                else {
+                    day = this.days.get(dayOfMonth - 1);
+                    if ( yearChanged && ! date.equals(day.date.get()) ) {
+                        day.date.set(date);
+                    }
+                }
+
+                if ( yearChanged ) {
+                    this.view.daysByDates.put(date, day);
+                }
+
+                day.timeStyle(today);
+            }
+
+            if ( super.getChildren().size() != daysInMonth ) {
+                super.getChildren().setAll(this.days.subList(0, daysInMonth));
+            }
+
+            return daysInMonth;
+        }
+    }
+
+    /*
+     * Lays out days of all months in one continuous flow, wrapping at its width the same way as a horizontal
+     * FlowPane does. Days are expected to have the same size.
+     * */
+    private static class YearFlow extends Pane {
+
+        private static final double PREF_WRAP_LENGTH = 400;
+
+        @Override
+        public Orientation getContentBias() {
+            return Orientation.HORIZONTAL;
+        }
+
+        @Override
+        protected double computePrefWidth(double height) {
+            Insets insets = super.getInsets();
+            return insets.getLeft() + PREF_WRAP_LENGTH + insets.getRight();
         }
 
-        private void monthFocused(boolean value) {
-            super.pseudoClassStateChanged(MONTH_FOCUSED, value);
+        @Override
+        protected double computePrefHeight(double width) {
+            Insets insets = super.getInsets();
+            double wrapLength = width < 0 ? PREF_WRAP_LENGTH : width - insets.getLeft() - insets.getRight();
+            return insets.getTop() + this.flow(wrapLength, false) + insets.getBottom();
+        }
+
+        @Override
+        protected void layoutChildren() {
+            Insets insets = super.getInsets();
+            double width = super.getWidth() - insets.getLeft() - insets.getRight();
+            double height = super.getHeight() - insets.getTop() - insets.getBottom();
+
+            for ( Node month : super.getChildren() ) {
+                month.resizeRelocate(insets.getLeft(), insets.getTop(), width, height);
+            }
+
+            this.flow(width, true);
+        }
+
+        /*
+         * Returns height of flow.
+         * */
+        private double flow(double wrapLength, boolean relocate) {
+            double x = 0;
+            double y = 0;
+            double rowHeight = 0;
+            double dayWidth;
+            double dayHeight;
+            for ( Node month : super.getChildren() ) {
+                for ( Node day : ((MonthInYear) month).getChildren() ) {
+                    dayWidth = super.snapSizeX(day.prefWidth(-1));
+                    dayHeight = super.snapSizeY(day.prefHeight(-1));
+
+                    if ( x > 0 && x + dayWidth > wrapLength ) {
+                        x = 0;
+                        y = y + rowHeight;
+                        rowHeight = 0;
+                    }
+
+                    if ( relocate ) {
+                        day.resizeRelocate(x, y, dayWidth, dayHeight);
+                    }
+
+                    x = x + dayWidth;
+                    rowHeight = Math.max(rowHeight, dayHeight);
+                }
+            }
+
+            return y + rowHeight;
         }
     }
 
     private final Calendar.State.Control calendarStateControl;
     private final DayInfoState dayInfoState;
-    private final Day.Info.ToString dayInfoToString;
+    private final DayInfoTexts dayInfoTexts;
     private final Day.MouseCallback mouseCallback;
-    private final PseudoClassesBoundTo<LocalDate> pseudoClassesByDates;
-    private final FlowPane view;
+    private final PseudoClassesByDates pseudoClassesByDates;
+    private final PseudoClassesChanges pseudoClassesChanges;
+    private final YearFlow view;
     private final ByDatesHolder<DayInYear> daysByDates;
-    private final Map<Month, List<DayInYear>> daysByMonths;
-    private final Map<Integer, DayInYear> daysByYearIndex;
+    private final Map<Month, MonthInYear> months;
     private final Function<LocalDate, String> defaultTooltipText;
-    private final MidnightTimer midnightTimer;
+    private final boolean lazyTooltipText;
+    private final Possible<Tooltip> sharedTooltip;
+    private DayInYear sharedTooltipDay;
+    private final MidnightTimer.Registration<YearViewImpl> midnight;
+    private final CoalescedAction navigation;
+    private final Clock clock;
+    private final Metrics metrics;
+    private CompletableFuture<Void> loading;
+    private final ChangeListener<LocalDate> navigationListener;
+    private boolean disposed;
+    private int filledYear;
 
     public YearViewImpl(
             Calendar.State.Control calendarState,
             DayInfoState dayInfoState,
             Day.Info.ToString dayInfoToString,
             Day.MouseCallback mouseCallback,
-            PseudoClassesBoundTo<LocalDate> pseudoClassesByDates,
-            Function<LocalDate, String> defaultTooltipText) {
+            PseudoClassesByDates pseudoClassesByDates,
+            Function<LocalDate, String> defaultTooltipText,
+            ViewSettings settings) {
         this.calendarStateControl = calendarState;
+        this.clock = settings.clock();
+        this.metrics = settings.metrics();
         this.dayInfoState = dayInfoState;
-        this.dayInfoToString = dayInfoToString;
+        this.dayInfoTexts = dayInfoState.textsOf(dayInfoToString, settings.tooltipTextsPrerendering());
         this.mouseCallback = mouseCallback;
         this.pseudoClassesByDates = pseudoClassesByDates;
+        this.pseudoClassesChanges = new PseudoClassesChanges(this::pseudoClassesChanged);
+        pseudoClassesByDates.add(this.pseudoClassesChanges);
         this.defaultTooltipText = defaultTooltipText;
+        this.lazyTooltipText = settings.tooltipText() == LAZY;
+        this.sharedTooltip = simplePossibleButEmpty();
+        if ( settings.tooltips() == SHARED ) {
+            Tooltip tooltip = new Tooltip();
+            tooltip.setOnShowing(event -> {
+                DayInYear day = this.sharedTooltipDay;
+                if ( nonNull(day) ) {
+                    day.fillTooltipText(day.date.get());
+                }
+            });
+            this.sharedTooltip.resetTo(tooltip);
+        }
         dayInfoState.add(this);
 
-        this.view = new FlowPane();
+        this.view = new YearFlow();
         this.daysByDates = new ByDatesHolder<>();
-        this.daysByMonths = new HashMap<>();
-        this.daysByYearIndex = new HashMap<>();
-
-        int year = calendarState.year();
-
-        this.dayInfoState.load(year);
-
-        List<Node> viewChildren = this.view.getChildren();
+        this.months = new EnumMap<>(Month.class);
 
+        MonthInYear monthInYear;
         for ( Month month : Month.values() ) {
-            this.daysByMonths.put(month, new ArrayList<>());
+            monthInYear = new MonthInYear(month, this);
+            this.months.put(month, monthInYear);
+            this.view.getChildren().add(monthInYear);
         }
 
-        LocalDate today = LocalDate.now();
-        LocalDate firstDayOfMonth;
-        LocalDate dayDate;
-        DayInYear day;
-        int daysInMonth;
-        int dayInYear = 1;
-        for ( Month month : Month.values() ) {
-            firstDayOfMonth = LocalDate.of(year, month, 1);
-            daysInMonth = firstDayOfMonth.lengthOfMonth();
-
-            for ( int dayInMonth = 1; dayInMonth <= daysInMonth; dayInMonth++) {
-                dayDate = LocalDate.of(year, month, dayInMonth);
-                day = new DayInYear(dayDate, this);
-
-                viewChildren.add(day);
-
-                this.daysByDates.put(dayDate, day);
-                this.daysByMonths.get(month).add(day);
-                this.daysByYearIndex.put(dayInYear, day);
-
-                if ( today.isEqual(dayDate) ) {
-                    day.todayStyle();
-                }
-                else if ( today.isBefore(dayDate) ) {
-                    day.futureStyle();
-                }
-                else {
-                    day.pastStyle();
-                }
-
-                dayInYear++;
-            }
-        }
+        int year = calendarState.year();
+        this.filledYear = year;
+        this.loading = this.dayInfoState.load(year);
+        this.fillMonths(year, true);
 
         this.view.getStyleClass().add("year-view");
 
-        this.calendarStateControl.property().addListener((p, oldDate, newDate) -> {
+        this.navigation = new CoalescedAction(settings.navigationCoalescing(), this::navigated);
+        this.navigationListener = (p, oldDate, newDate) -> {
             int oldYear = oldDate.getYear();
             int newYear = newDate.getYear();
 
             if ( oldYear != newYear ) {
-                this.fill();
-                System.out.println("change year");
+                this.navigation.request();
             }
-        });
+        };
+        this.calendarStateControl.property().addListener(this.navigationListener);
 
-        String timerThreadName = this.getClass().getCanonicalName() + "." + MidnightTimer.class.getSimpleName();
-        this.midnightTimer = new MidnightTimer(
-                timerThreadName,
-                this::fillInJavaFXThread);
+        this.midnight = MidnightTimer.registerShared(this.clock, this, YearViewImpl::fill);
     }
 
     @Override
@@ -262,71 +465,116 @@ public class YearViewImpl implements Calendar.YearView, DayInfoState.ChangesList
                 .forEach(DayInYear::refresh);
     }
 
+    @Override
+    public void onChanges(DayInfoChanges changes) {
+        this.daysByDates.forEachAffectedBy(changes, DayInYear::refresh);
+    }
+
     @Override
     public Region node() {
         return this.view;
     }
 
-    private void fillInJavaFXThread() {
-        if ( Platform.isFxApplicationThread() ) {
-            this.fill();
+    @Override
+    public void dispose() {
+        if ( this.disposed ) {
+            return;
         }
-        else {
-            Platform.runLater(this::fill);
+        this.disposed = true;
+
+        this.calendarStateControl.property().removeListener(this.navigationListener);
+        this.navigation.cancel();
+        this.loading.cancel(false);
+        this.midnight.cancel();
+        this.dayInfoState.remove(this);
+        this.pseudoClassesByDates.remove(this.pseudoClassesChanges);
+        this.dayInfoState.release(this.dayInfoTexts);
+    }
+
+    private void navigated() {
+        if ( this.filledYear != this.calendarStateControl.year() ) {
+            this.fill();
         }
     }
 
     private void fill() {
-        System.out.println("Year::fill");
-        this.daysByDates.clear();
-        this.daysByMonths.forEach((month, days) -> days.clear());
+        CalendarEvents.Fill event;
+        if ( CalendarEvents.isFillEnabled() ) {
+            event = new CalendarEvents.Fill();
+            event.begin();
+        }
+        else {
+            event = null;
+        }
+        long start = System.nanoTime();
+        int year = this.calendarStateControl.year();
+        int navigatedFrom = this.filledYear;
+        boolean yearChanged = navigatedFrom != year;
+        this.filledYear = year;
+
+        if ( yearChanged ) {
+            CompletableFuture<Void> previousLoading = this.loading;
+            this.loading = this.dayInfoState.loadAfterNavigation(Year.of(navigatedFrom), Year.of(year));
+            previousLoading.cancel(false);
+        }
 
-        List<Node> viewChildren = this.view.getChildren();
-        viewChildren.clear();
-        LocalDate today = LocalDate.now();
+        int cells = this.fillMonths(year, yearChanged);
 
-        this.view.maxWidthProperty();
+        this.metrics.filled(YEAR, System.nanoTime() - start);
 
-        int year = calendarStateControl.year();
-        this.dayInfoState.load(year);
+        if ( nonNull(event) && event.shouldCommit() ) {
+            event.view = YEAR.name();
+            event.period = String.valueOf(year);
+            event.cells = cells;
+            event.commit();
+        }
+    }
 
-        LocalDate firstDayOfMonth;
-        LocalDate dayDate;
-        DayInYear day;
-        int daysInMonth;
-        int dayInYear = 1;
-        for ( Month month : Month.values() ) {
-            firstDayOfMonth = LocalDate.of(year, month, 1);
-            daysInMonth = firstDayOfMonth.lengthOfMonth();
+    private int fillMonths(int year, boolean yearChanged) {
+        if ( yearChanged ) {
+            this.daysByDates.clear();
+        }
 
-            for ( int dayInMonth = 1; dayInMonth <= daysInMonth; dayInMonth++) {
-                dayDate = LocalDate.of(year, month, dayInMonth);
-                day = this.daysByYearIndex.get(dayInYear);
+        LocalDate today = LocalDate.now(this.clock);
+        int days = 0;
+        for ( MonthInYear month : this.months.values() ) {
+            days = days + month.fill(year, yearChanged, today);
+        }
 
-                if ( day == null ) {
-                    day = new DayInYear(dayDate, this);
-                    this.daysByYearIndex.put(dayInYear, day);
-                }
+        if ( yearChanged ) {
+            this.applyGivenPseudoClasses(year);
+        }
 
-                if ( today.isEqual(dayDate) ) {
-                    day.todayStyle();
-                }
-                else if ( today.isBefore(dayDate) ) {
-                    day.futureStyle();
+        return days;
+    }
+
+    private void applyGivenPseudoClasses(int year) {
+        for ( MonthInYear month : this.months.values() ) {
+            month.days.forEach(DayInYear::revertAppliedPseudoClasses);
+        }
+
+        LocalDate firstDate = LocalDate.of(year, 1, 1);
+        LocalDate lastDate = LocalDate.of(year, 12, 31);
+        this.pseudoClassesByDates.forEachBetween(firstDate, lastDate, (date, pseudoClasses) -> {
+            DayInYear day = this.daysByDates.findOrNull(date);
+            if ( nonNull(day) ) {
+                pseudoClasses.forEach(day::applyPseudoClass);
+            }
+        });
+    }
+
+    private void pseudoClassesChanged(List<PseudoClassesChanges.Change> changes) {
+        DayInYear day;
+        for ( PseudoClassesChanges.Change change : changes ) {
+            day = this.daysByDates.findOrNull(change.date);
+            if ( nonNull(day) ) {
+                if ( change.removed ) {
+                    day.revertPseudoClass(change.pseudoClass);
                 }
                 else {
-                    day.pastStyle();
+                    day.applyPseudoClass(change.pseudoClass, change.active);
                 }
-
-                day.date.set(dayDate);
-                this.daysByDates.put(dayDate, day);
-                this.daysByMonths.get(month).add(day);
-                viewChildren.add(day);
-
-                dayInYear++;
             }
         }
-
-        System.out.println("Year::filled");
     }
 }
@@ -1,5 +1,6 @@
 module diarsid.desktop.ui.components.calendar {
 
+    requires jdk.jfr;
     requires org.slf4j;
     requires javafx.controls;
     requires diarsid.support;
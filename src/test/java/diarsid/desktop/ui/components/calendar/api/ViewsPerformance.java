@@ -0,0 +1,443 @@
+package diarsid.desktop.ui.components.calendar.api;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.VBox;
+
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfo;
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfoToString;
+import diarsid.support.javafx.PlatformActions;
+
+import static java.lang.String.format;
+import static java.time.DayOfWeek.MONDAY;
+
+import static diarsid.desktop.ui.components.calendar.api.Calendar.MonthView.newMonthView;
+import static diarsid.desktop.ui.components.calendar.api.Calendar.State.Control.newCalendarStateControl;
+import static diarsid.desktop.ui.components.calendar.api.Calendar.YearView.newYearCanvasView;
+import static diarsid.desktop.ui.components.calendar.api.Calendar.YearView.newYearView;
+import static diarsid.desktop.ui.components.calendar.api.Day.Info.Control.newDayInfoControl;
+import static diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates.newPseudoClassesByDates;
+
+/*
+ * Measures construction and navigation latency, allocations and scene graph sizes of views.
+ * Intended to run without display, see 'headless' profile in pom.xml:
+ *
+ *   mvn -P headless test-compile exec:exec
+ *
+ * System properties calendar.perf.constructions, calendar.perf.navigations and calendar.perf.disposals
+ * change counts of measured operations.
+ *
+ * Disposal check fails if disposed views stay reachable or if count of live threads grows.
+ * */
+public class ViewsPerformance {
+
+    private static final int CONSTRUCTIONS = Integer.getInteger("calendar.perf.constructions", 50);
+    private static final int NAVIGATIONS = Integer.getInteger("calendar.perf.navigations", 5000);
+    private static final int DISPOSALS = Integer.getInteger("calendar.perf.disposals", 2000);
+    private static final int CACHED_MONTHS_ON_DISPOSALS = 36;
+    private static final LocalDate START = LocalDate.of(2000, 1, 15);
+    private static final PseudoClass MARKED = PseudoClass.getPseudoClass("applied");
+    private static final Function<LocalDate, String> DATE_TO_STRING = LocalDate::toString;
+
+    private static class SyntheticRepository implements Day.Info.Repository {
+
+        @Override
+        public Optional<Day.Info> findBy(LocalDate date) {
+            return Optional.ofNullable(infoOf(date));
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(YearMonth month) {
+            Map<LocalDate, Day.Info> infos = new HashMap<>();
+            Day.Info info;
+            for ( int day = 1; day <= month.lengthOfMonth(); day++ ) {
+                info = infoOf(month.atDay(day));
+                if ( info != null ) {
+                    infos.put(info.date(), info);
+                }
+            }
+            return infos;
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(Year year) {
+            Map<LocalDate, Day.Info> infos = new HashMap<>();
+            for ( int month = 1; month <= 12; month++ ) {
+                infos.putAll(this.findAllBy(year.atMonth(month)));
+            }
+            return infos;
+        }
+
+        private static Day.Info infoOf(LocalDate date) {
+            if ( date.getDayOfMonth() % 3 != 0 ) {
+                return null;
+            }
+            return new DayInfo(date, "header", "line 1", "line 2");
+        }
+    }
+
+    private interface ViewFactory {
+
+        Calendar newView(
+                Calendar.State.Control state,
+                Day.Info.Control dayInfoControl,
+                Day.Info.ToString dayInfoToString,
+                PseudoClassesByDates pseudoClasses);
+    }
+
+    private static class Measurement {
+
+        private final String name;
+        private final long[] nanos;
+        private final long[] allocatedBytes;
+        private int count;
+
+        private Measurement(String name, int operations) {
+            this.name = name;
+            this.nanos = new long[operations];
+            this.allocatedBytes = new long[operations];
+            this.count = 0;
+        }
+
+        private void add(long nanos, long allocatedBytes) {
+            this.nanos[this.count] = nanos;
+            this.allocatedBytes[this.count] = allocatedBytes;
+            this.count++;
+        }
+
+        private void print() {
+            long[] sorted = Arrays.copyOf(this.nanos, this.count);
+            Arrays.sort(sorted);
+            long allocated = Arrays.stream(this.allocatedBytes, 0, this.count).sum();
+
+            System.out.println(format(
+                    "%-28s n=%-6d p50=%8.3f ms  p90=%8.3f ms  p99=%8.3f ms  max=%8.3f ms  alloc=%10.1f KB/op",
+                    this.name,
+                    this.count,
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.90)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(sorted[sorted.length - 1]),
+                    allocated / 1024.0 / this.count));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        PlatformActions.awaitStartup();
+
+        onFxThread(() -> {
+            measure("month view",
+                    state -> monthView(
+                            state,
+                            newDayInfoControl(new SyntheticRepository(), Runnable::run),
+                            DayInfoToString.DEFAULT,
+                            marked()),
+                    Calendar.State.Control::toNextMonth,
+                    NAVIGATIONS);
+
+            measure("year view",
+                    state -> yearView(
+                            state,
+                            newDayInfoControl(new SyntheticRepository(), Runnable::run),
+                            DayInfoToString.DEFAULT,
+                            marked()),
+                    Calendar.State.Control::toNextYear,
+                    NAVIGATIONS / 10);
+
+            measure("year canvas view",
+                    state -> yearCanvasView(
+                            state,
+                            newDayInfoControl(new SyntheticRepository(), Runnable::run),
+                            DayInfoToString.DEFAULT,
+                            marked()),
+                    Calendar.State.Control::toNextYear,
+                    NAVIGATIONS / 10);
+
+            return null;
+        });
+
+        checkDisposal("month view", ViewsPerformance::monthView);
+        checkDisposal("year view", ViewsPerformance::yearView);
+        checkDisposal("year canvas view", ViewsPerformance::yearCanvasView);
+
+        Platform.exit();
+    }
+
+    private static Calendar.MonthView monthView(
+            Calendar.State.Control state,
+            Day.Info.Control dayInfoControl,
+            Day.Info.ToString dayInfoToString,
+            PseudoClassesByDates pseudoClasses) {
+        return newMonthView(
+                state,
+                dayInfoControl,
+                dayInfoToString,
+                (click, date, dayInfo) -> { },
+                MONDAY,
+                pseudoClasses,
+                DATE_TO_STRING,
+                ViewSettings.DEFAULT);
+    }
+
+    private static Calendar.YearView yearView(
+            Calendar.State.Control state,
+            Day.Info.Control dayInfoControl,
+            Day.Info.ToString dayInfoToString,
+            PseudoClassesByDates pseudoClasses) {
+        return newYearView(
+                state,
+                dayInfoControl,
+                dayInfoToString,
+                (click, date, dayInfo) -> { },
+                pseudoClasses,
+                DATE_TO_STRING,
+                ViewSettings.DEFAULT);
+    }
+
+    private static Calendar.YearView yearCanvasView(
+            Calendar.State.Control state,
+            Day.Info.Control dayInfoControl,
+            Day.Info.ToString dayInfoToString,
+            PseudoClassesByDates pseudoClasses) {
+        return newYearCanvasView(
+                state,
+                dayInfoControl,
+                dayInfoToString,
+                (click, date, dayInfo) -> { },
+                pseudoClasses,
+                DATE_TO_STRING,
+                ViewSettings.DEFAULT);
+    }
+
+    private static <V extends Calendar> void measure(
+            String name,
+            Function<Calendar.State.Control, V> newView,
+            Consumer<Calendar.State.Control> navigate,
+            int navigations) {
+        VBox root = new VBox();
+        new Scene(root, 800, 600);
+
+        Measurement construction = new Measurement(name + " construction", CONSTRUCTIONS);
+        Calendar.State.Control state = null;
+        Node node = null;
+        long start;
+        long allocated;
+        for ( int i = 0; i < CONSTRUCTIONS; i++ ) {
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+
+            state = newCalendarStateControl(START);
+            node = nodeOf(newView.apply(state));
+            root.getChildren().setAll(node);
+            root.applyCss();
+            root.layout();
+
+            construction.add(System.nanoTime() - start, allocatedBytes() - allocated);
+        }
+
+        Measurement navigation = new Measurement(name + " navigation", navigations);
+        for ( int i = 0; i < navigations; i++ ) {
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+
+            navigate.accept(state);
+            root.applyCss();
+            root.layout();
+
+            navigation.add(System.nanoTime() - start, allocatedBytes() - allocated);
+        }
+
+        construction.print();
+        navigation.print();
+        System.out.println(format("%-28s nodes=%d", name + " scene graph", nodesCount(node)));
+        System.out.println();
+
+        root.getChildren().clear();
+    }
+
+    /*
+     * Views are created over the same long-living Calendar.State, Day.Info.Control and PseudoClassesByDates,
+     * as they are in applications, shown, navigated and disposed. Every view gets its own Day.Info.ToString,
+     * so anything kept per view by these shared objects keeps the disposed view reachable.
+     * */
+    private static void checkDisposal(String name, ViewFactory newView) throws Exception {
+        Calendar.State.Control state = newCalendarStateControl(START);
+        Day.Info.Control dayInfoControl = newDayInfoControl(
+                Day.Info.Repository.Async.asyncOver(new SyntheticRepository(), Runnable::run),
+                Day.Info.Control.Eviction.leastRecentlyUsed(CACHED_MONTHS_ON_DISPOSALS));
+        PseudoClassesByDates pseudoClasses = marked();
+        List<WeakReference<Calendar>> views = new ArrayList<>(DISPOSALS);
+
+        onFxThread(() -> {
+            createAndDispose(state, dayInfoControl, pseudoClasses, newView, CONSTRUCTIONS, new ArrayList<>());
+            return null;
+        });
+
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        onFxThread(() -> {
+            createAndDispose(state, dayInfoControl, pseudoClasses, newView, DISPOSALS, views);
+            state.toNextYear();
+            return null;
+        });
+        /* let tasks scheduled by disposed views to run */
+        onFxThread(() -> null);
+
+        long reachableViews = reachableAfterGc(views);
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        System.out.println(format(
+                "%-28s n=%-6d reachable=%d  threads=%d -> %d",
+                name + " disposal",
+                DISPOSALS,
+                reachableViews,
+                threadsBefore,
+                threadsAfter));
+        System.out.println();
+
+        if ( reachableViews > 0 ) {
+            throw new IllegalStateException(reachableViews + " disposed views of " + name + " are still reachable");
+        }
+
+        if ( threadsAfter > threadsBefore ) {
+            throw new IllegalStateException(
+                    "threads count has grown from " + threadsBefore + " to " + threadsAfter + " after " + name + " disposals");
+        }
+    }
+
+    private static void createAndDispose(
+            Calendar.State.Control state,
+            Day.Info.Control dayInfoControl,
+            PseudoClassesByDates pseudoClasses,
+            ViewFactory newView,
+            int count,
+            List<WeakReference<Calendar>> views) {
+        VBox root = new VBox();
+        new Scene(root, 800, 600);
+
+        Calendar view;
+        for ( int i = 0; i < count; i++ ) {
+            view = newView.newView(state, dayInfoControl, distinctDayInfoToString(), pseudoClasses);
+            root.getChildren().setAll(nodeOf(view));
+            root.applyCss();
+            root.layout();
+
+            state.toNextMonth();
+
+            root.getChildren().clear();
+            dispose(view);
+            views.add(new WeakReference<>(view));
+        }
+    }
+
+    /*
+     * Lambda without captured values would be the same instance on every call.
+     * */
+    private static Day.Info.ToString distinctDayInfoToString() {
+        return new Day.Info.ToString() {
+
+            @Override
+            public String apply(Day.Info dayInfo) {
+                return DayInfoToString.DEFAULT.apply(dayInfo);
+            }
+        };
+    }
+
+    private static PseudoClassesByDates marked() {
+        PseudoClassesByDates.Control pseudoClasses = newPseudoClassesByDates();
+        LocalDate date = START.minusYears(1);
+        LocalDate end = START.plusYears(50);
+        while ( date.isBefore(end) ) {
+            pseudoClasses.set(date, MARKED, true);
+            date = date.plusDays(5);
+        }
+        return pseudoClasses;
+    }
+
+    private static Node nodeOf(Calendar view) {
+        if ( view instanceof Calendar.MonthView ) {
+            return ((Calendar.MonthView) view).node();
+        }
+        else {
+            return ((Calendar.YearView) view).node();
+        }
+    }
+
+    private static void dispose(Calendar view) {
+        if ( view instanceof Calendar.MonthView ) {
+            ((Calendar.MonthView) view).dispose();
+        }
+        else {
+            ((Calendar.YearView) view).dispose();
+        }
+    }
+
+    private static int nodesCount(Node node) {
+        int count = 1;
+        if ( node instanceof Parent ) {
+            for ( Node child : ((Parent) node).getChildrenUnmodifiable() ) {
+                count = count + nodesCount(child);
+            }
+        }
+        return count;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+     * Garbage collection is only requested, so it is requested until all views are collected or attempts end.
+     * */
+    private static long reachableAfterGc(List<WeakReference<Calendar>> views) throws InterruptedException {
+        long reachable = views.size();
+        for ( int attempt = 0; attempt < 10 && reachable > 0; attempt++ ) {
+            System.gc();
+            Thread.sleep(100);
+            reachable = views.stream().filter(view -> view.get() != null).count();
+        }
+        return reachable;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static <T> T onFxThread(Supplier<T> action) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.get());
+            }
+            catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get();
+    }
+}
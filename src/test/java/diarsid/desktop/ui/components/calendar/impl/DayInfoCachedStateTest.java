@@ -0,0 +1,237 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfo;
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfoToString;
+
+import static java.util.Collections.synchronizedList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DayInfoCachedStateTest {
+
+    private static final LocalDate DATE = LocalDate.of(2021, 3, 10);
+
+    private static class QueriesRecordingRepository implements Day.Info.Repository {
+
+        private final List<String> queries = synchronizedList(new ArrayList<>());
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBetween(LocalDate from, LocalDate toInclusive) {
+            this.queries.add(YearMonth.from(from) + " - " + YearMonth.from(toInclusive));
+            return new HashMap<>();
+        }
+
+        @Override
+        public Optional<Day.Info> findBy(LocalDate date) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(YearMonth month) {
+            return new HashMap<>();
+        }
+
+        @Override
+        public Map<LocalDate, Day.Info> findAllBy(Year year) {
+            return new HashMap<>();
+        }
+    }
+
+    private static class Listener implements DayInfoState.ChangesListener {
+
+        private final List<DayInfoChanges> changes = new ArrayList<>();
+
+        @Override
+        public void onChange(LocalDate date) {
+        }
+
+        @Override
+        public void onChange(YearMonth month) {
+        }
+
+        @Override
+        public void onChange(Year year) {
+        }
+
+        @Override
+        public void onChanges(DayInfoChanges changes) {
+            this.changes.add(changes);
+        }
+    }
+
+    private static DayInfoCachedState newState() {
+        return newState(Runnable::run);
+    }
+
+    private static DayInfoCachedState newState(Executor changesExecutor) {
+        return new DayInfoCachedState(
+                Day.Info.Repository.Async.asyncOver(new QueriesRecordingRepository(), Runnable::run),
+                Day.Info.Control.Eviction.never(),
+                0,
+                changesExecutor);
+    }
+
+    private static DayInfoCachedState newPrefetchingState(QueriesRecordingRepository repository, Executor repositoryExecutor) {
+        return new DayInfoCachedState(
+                Day.Info.Repository.Async.asyncOver(repository, repositoryExecutor),
+                Day.Info.Control.Eviction.never(),
+                1,
+                Runnable::run);
+    }
+
+    @Test
+    public void prefetchFollowsDirectionOfEachCaller() {
+        QueriesRecordingRepository repository = new QueriesRecordingRepository();
+        DayInfoCachedState state = newPrefetchingState(repository, Runnable::run);
+
+        state.loadAfterNavigation(YearMonth.of(2021, 1), YearMonth.of(2021, 1), YearMonth.of(2021, 2), YearMonth.of(2021, 3));
+        state.loadAfterNavigation(YearMonth.of(2021, 8), YearMonth.of(2021, 6), YearMonth.of(2021, 7), YearMonth.of(2021, 8));
+
+        assertEquals(
+                List.of("2021-01 - 2021-03", "2021-04 - 2021-04", "2021-06 - 2021-08", "2021-05 - 2021-05"),
+                repository.queries);
+    }
+
+    @Test
+    public void prefetchIsQueuedBehindForegroundLoads() {
+        QueriesRecordingRepository repository = new QueriesRecordingRepository();
+        Queue<Runnable> repositoryTasks = new ArrayDeque<>();
+        DayInfoCachedState state = newPrefetchingState(repository, repositoryTasks::add);
+
+        state.loadAfterNavigation(YearMonth.of(2021, 1), YearMonth.of(2021, 1), YearMonth.of(2021, 2), YearMonth.of(2021, 3));
+        assertEquals(1, repositoryTasks.size(), "only foreground query is submitted");
+
+        Runnable task;
+        while ( (task = repositoryTasks.poll()) != null ) {
+            task.run();
+        }
+
+        assertEquals(List.of("2021-01 - 2021-03", "2021-04 - 2021-04"), repository.queries);
+    }
+
+    @Test
+    public void loadChangesAreDispatchedTogetherWithSetChanges() {
+        Queue<Runnable> dispatches = new ArrayDeque<>();
+        DayInfoCachedState state = newState(dispatches::add);
+        Listener listener = new Listener();
+        state.add(listener);
+
+        YearMonth month = YearMonth.from(DATE);
+        state.set(new DayInfo(DATE, "header"));
+        state.load(month.minusMonths(1), month, month.plusMonths(1));
+        dispatches.forEach(Runnable::run);
+
+        assertEquals(1, dispatches.size(), "one dispatch is scheduled");
+        assertEquals(1, listener.changes.size(), "listeners are notified once");
+        DayInfoChanges changes = listener.changes.get(0);
+        assertEquals(Set.of(month.minusMonths(1), month, month.plusMonths(1)), Set.copyOf(changes.months()));
+        assertTrue(changes.dates().isEmpty(), "changed date is merged into its loaded month");
+    }
+
+    @Test
+    public void removedDatesStayRemovedUntilRefresh() {
+        QueriesRecordingRepository repository = new QueriesRecordingRepository() {
+
+            @Override
+            public Map<LocalDate, Day.Info> findAllBetween(LocalDate from, LocalDate toInclusive) {
+                super.findAllBetween(from, toInclusive);
+                return new HashMap<>(Map.of(DATE, new DayInfo(DATE, "header")));
+            }
+        };
+        DayInfoCachedState state = new DayInfoCachedState(
+                Day.Info.Repository.Async.asyncOver(repository, Runnable::run),
+                Day.Info.Control.Eviction.never(),
+                0,
+                Runnable::run);
+        YearMonth month = YearMonth.from(DATE);
+
+        state.load(month.minusMonths(1), month, month.plusMonths(1));
+        state.removeAll(List.of(DATE));
+        state.load(month.minusMonths(1), month, month.plusMonths(1));
+
+        assertEquals(1, repository.queries.size(), "months of removed dates are not queried again");
+        assertNull(state.findDayInfoOrNull(DATE), "removed date stays removed");
+
+        state.refresh(month);
+
+        assertEquals(2, repository.queries.size(), "refresh queries months again");
+        assertEquals(DATE, state.findDayInfoOrNull(DATE).date(), "refresh restores removed date");
+    }
+
+    @Test
+    public void listenerRemovedDuringDispatchDoesNotStopIt() {
+        DayInfoCachedState state = newState();
+        Listener remaining = new Listener();
+        state.add(new Listener() {
+
+            @Override
+            public void onChanges(DayInfoChanges changes) {
+                state.remove(this);
+            }
+        });
+        state.add(remaining);
+
+        state.set(new DayInfo(DATE, "header"));
+        state.set(new DayInfo(DATE.plusDays(1), "header"));
+
+        assertEquals(2, remaining.changes.size());
+    }
+
+    /*
+     * Views add listeners and take texts of their own Day.Info.ToString, after disposal the state must not
+     * keep any of them.
+     * */
+    @Test
+    public void removedListenerAndReleasedTextsAreNotReachable() throws InterruptedException {
+        DayInfoCachedState state = newState();
+        Listener listener = new Listener();
+        Day.Info.ToString dayInfoToString = new Day.Info.ToString() {
+
+            @Override
+            public String apply(Day.Info dayInfo) {
+                return DayInfoToString.DEFAULT.apply(dayInfo);
+            }
+        };
+
+        state.add(listener);
+        DayInfoTexts texts = state.textsOf(dayInfoToString, false);
+        Day.Info dayInfo = new DayInfo(DATE, "header");
+        state.set(dayInfo);
+        texts.textOf(dayInfo);
+        state.remove(listener);
+        state.release(texts);
+
+        WeakReference<Listener> removedListener = new WeakReference<>(listener);
+        WeakReference<Day.Info.ToString> releasedToString = new WeakReference<>(dayInfoToString);
+        listener = null;
+        dayInfoToString = null;
+        texts = null;
+
+        for ( int attempt = 0; attempt < 10 && (removedListener.get() != null || releasedToString.get() != null); attempt++ ) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertNull(removedListener.get(), "removed listener is reachable");
+        assertNull(releasedToString.get(), "released Day.Info.ToString is reachable");
+    }
+}
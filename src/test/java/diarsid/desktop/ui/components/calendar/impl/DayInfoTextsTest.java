@@ -0,0 +1,42 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import diarsid.desktop.ui.components.calendar.api.Day;
+import diarsid.desktop.ui.components.calendar.api.defaultimpl.DayInfo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DayInfoTextsTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2021, 3);
+
+    @Test
+    public void invalidationOfMonthRendersOnlyItsDatesAgain() {
+        AtomicInteger renderings = new AtomicInteger();
+        DayInfoTexts texts = new DayInfoTexts(dayInfo -> {
+            renderings.incrementAndGet();
+            return dayInfo.date().toString();
+        });
+
+        List<Day.Info> dayInfos = List.of(
+                new DayInfo(MONTH.atDay(1), "header"),
+                new DayInfo(MONTH.atEndOfMonth(), "header"),
+                new DayInfo(MONTH.plusMonths(1).atDay(1), "header"));
+        texts.prerender(dayInfos);
+        assertEquals(3, renderings.get());
+
+        texts.invalidate(MONTH);
+        texts.prerender(dayInfos);
+        assertEquals(5, renderings.get(), "dates of invalidated month are rendered again");
+
+        texts.invalidate(MONTH.atDay(1));
+        texts.prerender(dayInfos);
+        assertEquals(6, renderings.get(), "invalidated date is rendered again");
+    }
+}
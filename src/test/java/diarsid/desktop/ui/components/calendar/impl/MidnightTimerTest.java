@@ -0,0 +1,149 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/*
+ * Checks MidnightTimer against a controlled Clock, without waiting for a real midnight and without JavaFX.
+ * Date checks are made directly by the test. Actions are run by the test thread or, if the timer happens
+ * to wake up meanwhile, by the timer thread, so they are recorded into a thread-safe list.
+ * */
+public class MidnightTimerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Kiev");
+
+    private static class ControlledClock extends Clock {
+
+        private final ZoneId zone;
+        private volatile Instant instant;
+
+        private ControlledClock(LocalDateTime dateTime) {
+            this(dateTime.atZone(ZONE).toInstant(), ZONE);
+        }
+
+        private ControlledClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        private void advance(Duration duration) {
+            this.instant = this.instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return this.zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new ControlledClock(this.instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return this.instant;
+        }
+    }
+
+    private static class Owner {
+
+        private final Clock clock;
+        private final List<LocalDate> midnights;
+
+        private Owner(Clock clock) {
+            this.clock = clock;
+            this.midnights = new CopyOnWriteArrayList<>();
+        }
+
+        private void midnight() {
+            this.midnights.add(LocalDate.now(this.clock));
+        }
+    }
+
+    @Test
+    public void actionsRunOncePerDateChange() {
+        ControlledClock clock = new ControlledClock(LocalDateTime.of(2021, 3, 10, 23, 59, 59));
+        MidnightTimer timer = new MidnightTimer(clock, Runnable::run);
+
+        Owner owner = new Owner(clock);
+        Owner cancelledOwner = new Owner(clock);
+        MidnightTimer.Registration<Owner> registration = timer.register(owner, Owner::midnight);
+        MidnightTimer.Registration<Owner> cancelled = timer.register(cancelledOwner, Owner::midnight);
+        cancelled.cancel();
+
+        try {
+            timer.checkDate();
+            assertEquals(List.of(), owner.midnights, "no action before midnight");
+
+            clock.advance(Duration.ofSeconds(2));
+            timer.checkDate();
+            timer.checkDate();
+            assertEquals(List.of(LocalDate.of(2021, 3, 11)), owner.midnights, "one action after midnight");
+            assertEquals(List.of(), cancelledOwner.midnights, "no action of cancelled registration");
+
+            clock.advance(Duration.ofDays(1));
+            timer.checkDate();
+            assertEquals(2, owner.midnights.size(), "one action after next midnight");
+        }
+        finally {
+            registration.cancel();
+        }
+    }
+
+    /*
+     * Day of transition to summer time lasts 23 hours in this zone.
+     * */
+    @Test
+    public void actionsRunOnMidnightAfterDstTransition() {
+        ControlledClock clock = new ControlledClock(LocalDateTime.of(2021, 3, 28, 0, 0, 1));
+        MidnightTimer timer = new MidnightTimer(clock, Runnable::run);
+
+        Owner owner = new Owner(clock);
+        MidnightTimer.Registration<Owner> registration = timer.register(owner, Owner::midnight);
+
+        try {
+            clock.advance(Duration.ofHours(23).minusSeconds(2));
+            timer.checkDate();
+            assertEquals(List.of(), owner.midnights, "no action before midnight after DST transition");
+
+            clock.advance(Duration.ofSeconds(2));
+            timer.checkDate();
+            assertEquals(List.of(LocalDate.of(2021, 3, 29)), owner.midnights, "one action after midnight after DST transition");
+        }
+        finally {
+            registration.cancel();
+        }
+    }
+
+    @Test
+    public void sharedTimerIsForgottenOnLastCancel() {
+        Clock clock = Clock.system(ZONE);
+
+        MidnightTimer.Registration<Owner> first = MidnightTimer.registerShared(clock, new Owner(clock), Owner::midnight);
+        MidnightTimer.Registration<Owner> second = MidnightTimer.registerShared(clock, new Owner(clock), Owner::midnight);
+        assertSame(first.timer(), second.timer(), "same shared timer while registered");
+
+        first.cancel();
+        MidnightTimer.Registration<Owner> third = MidnightTimer.registerShared(clock, new Owner(clock), Owner::midnight);
+        assertSame(second.timer(), third.timer(), "same shared timer while one registration is left");
+
+        second.cancel();
+        third.cancel();
+        MidnightTimer.Registration<Owner> afterLastCancel = MidnightTimer.registerShared(clock, new Owner(clock), Owner::midnight);
+        assertNotSame(first.timer(), afterLastCancel.timer(), "new shared timer after last cancel");
+        afterLastCancel.cancel();
+    }
+}
@@ -0,0 +1,134 @@
+package diarsid.desktop.ui.components.calendar.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javafx.css.PseudoClass;
+
+import org.junit.jupiter.api.Test;
+
+import diarsid.desktop.ui.components.calendar.api.PseudoClassesByDates;
+
+import static java.util.Collections.synchronizedList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PseudoClassesByDatesTest {
+
+    private static final PseudoClass MARKED = PseudoClass.getPseudoClass("marked");
+    private static final LocalDate DATE = LocalDate.of(2021, 3, 10);
+
+    private static class RecordingListener implements PseudoClassesByDates.ChangesListener {
+
+        private final List<String> changes = synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onSet(LocalDate date, PseudoClass pseudoClass, boolean active) {
+            this.changes.add("set " + date + " " + pseudoClass.getPseudoClassName() + " " + active);
+        }
+
+        @Override
+        public void onRemove(LocalDate date, PseudoClass pseudoClass) {
+            this.changes.add("remove " + date + " " + pseudoClass.getPseudoClassName());
+        }
+    }
+
+    @Test
+    public void copyIsStatic() {
+        Map<LocalDate, Map<PseudoClass, Boolean>> bound = new HashMap<>();
+        bound.put(DATE, Map.of(MARKED, true));
+        bound.put(DATE.plusMonths(1), Map.of());
+
+        PseudoClassesByDates copy = PseudoClassesIndexedByDates.copyOf(bound::forEach);
+        RecordingListener listener = new RecordingListener();
+        copy.add(listener);
+
+        bound.put(DATE.plusDays(1), Map.of(MARKED, true));
+
+        List<LocalDate> visited = new ArrayList<>();
+        copy.forEachBetween(DATE.withDayOfMonth(1), DATE.plusMonths(1), (date, pseudoClasses) -> {
+            visited.add(date);
+        });
+
+        assertEquals(List.of(DATE), visited, "only dates bound at copy with pseudo classes are visited");
+        assertTrue(listener.changes.isEmpty(), "bound changes are not passed to listeners");
+    }
+
+    @Test
+    public void indexedPassesOnlyActualChanges() {
+        PseudoClassesByDates.Control indexed = new PseudoClassesIndexedByDates();
+        RecordingListener listener = new RecordingListener();
+        indexed.add(listener);
+
+        indexed.set(DATE, MARKED, true);
+        indexed.set(DATE, MARKED, true);
+        indexed.set(DATE, MARKED, false);
+        indexed.remove(DATE, MARKED);
+        indexed.remove(DATE, MARKED);
+
+        assertEquals(
+                List.of(
+                        "set 2021-03-10 marked true",
+                        "set 2021-03-10 marked false",
+                        "remove 2021-03-10 marked"),
+                listener.changes);
+    }
+
+    @Test
+    public void indexedPassesConcurrentChangesInOrder() throws InterruptedException {
+        PseudoClassesByDates.Control indexed = new PseudoClassesIndexedByDates();
+        AtomicReference<Boolean> lastPassed = new AtomicReference<>();
+        indexed.add(new PseudoClassesByDates.ChangesListener() {
+
+            @Override
+            public void onSet(LocalDate date, PseudoClass pseudoClass, boolean active) {
+                lastPassed.set(active);
+            }
+
+            @Override
+            public void onRemove(LocalDate date, PseudoClass pseudoClass) {
+                lastPassed.set(null);
+            }
+        });
+
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(writers);
+        for ( int i = 0; i < writers; i++ ) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for ( int change = 0; change < 10_000; change++ ) {
+                        int kind = ThreadLocalRandom.current().nextInt(3);
+                        if ( kind == 2 ) {
+                            indexed.remove(DATE, MARKED);
+                        }
+                        else {
+                            indexed.set(DATE, MARKED, kind == 1);
+                        }
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        AtomicReference<Boolean> actual = new AtomicReference<>();
+        indexed.forEachBetween(DATE, DATE, (date, pseudoClasses) -> actual.set(pseudoClasses.get(MARKED)));
+
+        assertEquals(actual.get(), lastPassed.get(), "last passed change is the actual state");
+    }
+}